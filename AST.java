@@ -4,28 +4,41 @@
  * Abstract Syntax Tree
  * 
  */
+
+import java.util.Arrays ;
+
 public class AST
 {
 	private Expression root ; 
+	// The table of variable names the ids in the tree are from
+	private final Symbol symbols ;
 	public AST()
 	{
+		this( new Symbol() ) ;
+		return ;
+	}
+	/** Constructor
+	 * @param symbols is the table the Parser gave variable names ids from */
+	public AST( final Symbol symbols )
+	{
+		this.symbols = symbols ;
 		this.reset() ;
 		return ;
 	}
 	public void reset() 
 	{
-		this.root = new Expression( new LinkedList<Expression>() ) ;
+		this.root = new Expression() ;
 		return ;
 	}
 	public static final class Expression
 	{
 		// Final fields do not need setters
 		// Child expressions
-		// The order of the list is very important, as the tree must be 
-		// traversed from left to right, so Hashtables and HashMaps cannot 
-		// be used. A LinkedList is used as nodes are easy to add to the end
-		// of the list, and it is simple to traverse the list in order.
-		private final LinkedList<Expression> children ; 
+		// The order of the array is very important, as the tree must be 
+		// traversed from left to right. An array is used as the children 
+		// are known when the node is made, and any child can be got 
+		// directly by its index. It is a copy, so cannot be changed.
+		private final Expression[] children ; 
 		// Leaf nodes have no children, but must have content
 		private final Token content ; 
 
@@ -38,30 +51,36 @@ public class AST
 		}
 		/** 
 		 * Constructor for a non-leaf node 
-		 * @param expression : sets children to expression 
+		 * @param expression : the children, copied
 		 */
-		public Expression( final LinkedList<Expression> expression )
+		public Expression( final IndexedList<Expression> expression )
 		{
-			this.children = expression ;
+			this.children = Arrays.copyOf( expression.toArray() , expression.getLength() 
+					, Expression[].class ) ;
 			this.content = null ;
 			return ;
 		}
 		/** 
 		 * Constructor for a non-leaf node 
-		 * @param expression : varargs children
+		 * @param expression : varargs children, copied
 		 */
 		public Expression( final Expression... expression )
 		{
-			this.children = new LinkedList<Expression>( expression ) ;
+			this.children = expression.clone() ;
 			this.content = null ;
 			return ;
 		}
 
 		// Getters
-		public LinkedList<Expression> getChildren() 
+		/** @return true if a leaf node, with content instead of children */
+		public boolean isLeaf() { return this.children == null ; }
+		/** @return the number of children, 0 if a leaf node */
+		public int getChildCount() 
 		{
-			return this.children ; 
+			return this.children == null ? 0 : this.children.length ; 
 		} 
+		/** @return the child at index i */
+		public Expression getChild( final int i ) { return this.children[i] ; }
 		public Token getContent() { return this.content ; } 
 	}
 
@@ -90,10 +109,9 @@ public class AST
 			sz = "Expr" ;
 		}
 
-		if ( node.getChildren() != null 
-				&& node.getChildren().getLength() > 0 )
+		if ( node.getChildCount() > 0 )
 		{
-			for ( int i = 0 ; i < node.getChildren().getLength() ; i ++ )
+			for ( final AST.Expression child : node.children )
 			{
 				sz = sz + "\n" ;
 				for ( int j = 0 ; j < iLevel * 3 ; j ++ )
@@ -107,8 +125,7 @@ public class AST
 					sz = sz + " " ;
 				}
 				sz = sz + "+-- " ;
-				sz = sz + this.buildTextToDisplay( ( ( AST.Expression ) 
-						node.getChildren().toArray()[ i ] ) , iLevel + 1 ) ;
+				sz = sz + this.buildTextToDisplay( child , iLevel + 1 ) ;
 			}
 		}
 
@@ -121,4 +138,21 @@ public class AST
 		return ; 
 	}
 	public Expression getRoot() { return this.root ; } 
+	/** @return the table the ids of variable names are from */
+	public Symbol getSymbols() { return this.symbols ; }
+	/** @return the number of expressions in the tree, including the root */
+	public int getSize() { return AST.getSize( this.root ) ; }
+	private static int getSize( final Expression node )
+	{
+		int iRet = 1 ;
+
+		if ( node.isLeaf() == false )
+		{
+			for ( final Expression child : node.children )
+			{
+				iRet = iRet + AST.getSize( child ) ;
+			}
+		}
+		return iRet ;
+	}
 }
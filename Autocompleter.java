@@ -188,17 +188,17 @@ public class Autocompleter
 			// Get pivot
 			pivot = inputList.pop() ;
 			// For each item in list
-			for ( int i = 0 ; i < inputList.getLength() ; i ++ )
+			for ( final String sz : inputList )
 			{
-				// If item at index i is lesser than pivot, add to smaller
-				if ( this.checkStringLesser( inputList.peek(i) , pivot ) ) 
+				// If item is lesser than pivot, add to smaller
+				if ( this.checkStringLesser( sz , pivot ) ) 
 				{
-					smaller.add( inputList.peek(i) ) ;
+					smaller.add( sz ) ;
 				}
 				// If greater or equal, add to greater
 				else
 				{
-					greater.add( inputList.peek(i) ) ;
+					greater.add( sz ) ;
 				}
 			}
 			// Recurse and add to return list 
@@ -0,0 +1,367 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Benchmarks of the Lexer, Parser, Interpreter, Dictionary, ParamStack
+ * and Autocompleter, so that performance changes can be measured.
+ * Each benchmark is one operation with a name. The JMH benchmarks in
+ * src/jmh/java run them by name through getOperation, and their results
+ * are kept in benchmarks/baseline.txt. main is a quick check without JMH:
+ * each benchmark is run until warmed up, then timed over several rounds,
+ * and the mean time per operation printed with the spread between rounds.
+ * Run from the project directory so that the programs in tests/chNN are
+ * found. Benchmarks can be chosen by giving part of their names as
+ * arguments, e.g. 'lexer' or 'bytecode'.
+ *
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+public class Benchmarks
+{
+	// Milliseconds to run each benchmark before timing it
+	private static final long WARMUP = 1000 ;
+	// Number of timed rounds, and milliseconds in each
+	private static final int ROUNDS = 5 ;
+	private static final long ROUND = 200 ;
+	// Forth code repeated to make input of any length
+	private static final String SAMPLE = ": sq dup * ; ( n -- n*n ) 10 0 do i sq . loop "
+			+ "variable x 5 x ! x @ 2 + . .\" done\" cr " ;
+
+	// Results are added to this, so that the work cannot be removed as unused
+	private static volatile int iSink = 0 ;
+	// Output of the Interpreter while benchmarking, which is thrown away
+	private static final PrintStream NOWHERE = new PrintStream( OutputStream.nullOutputStream() ) ;
+	private static PrintStream out = System.out ;
+	// The benchmarks being made, by name, in order
+	private static LinkedHashMap<String , IntSupplier> operations = null ;
+
+	/** Adds a benchmark
+	 * @param szName is the name of the benchmark
+	 * @param op is one operation, returning anything that depends on its work */
+	private static void add( final String szName , final IntSupplier op )
+	{
+		Benchmarks.operations.put( szName , op ) ;
+		return ;
+	}
+	/** Makes all the benchmarks, each with its own state
+	 * @return the operations, by name */
+	private static synchronized LinkedHashMap<String , IntSupplier> getOperations() throws IOException
+	{
+		final LinkedHashMap<String , IntSupplier> ret ;
+
+		Benchmarks.operations = new LinkedHashMap<>() ;
+		Benchmarks.benchLexer() ;
+		Benchmarks.benchParser() ;
+		Benchmarks.benchPrograms() ;
+		Benchmarks.benchKernels() ;
+		Benchmarks.benchProgramCache() ;
+		Benchmarks.benchDictionary() ;
+		Benchmarks.benchParamStack() ;
+		Benchmarks.benchAutocompleter() ;
+		ret = Benchmarks.operations ;
+		Benchmarks.operations = null ;
+		return ret ;
+	}
+	/**
+	 * Makes a benchmark. Used by the JMH benchmarks, which are in a 
+	 * package, so cannot name the classes here
+	 * @param szName is the name of the benchmark, as printed by main
+	 * @return the operation, or null if there is no benchmark with the name
+	 */
+	public static IntSupplier getOperation( final String szName ) throws IOException
+	{
+		return Benchmarks.getOperations().get( szName ) ;
+	}
+
+	/** Runs a benchmark, and prints its result
+	 * @param szName is the name of the benchmark
+	 * @param op is one operation, returning anything that depends on its work */
+	private static void run( final String szName , final IntSupplier op )
+	{
+		final double[] dRounds = new double[ Benchmarks.ROUNDS ] ;
+		double dMean = 0 ;
+		double dSpread = 0 ;
+		long lBatch = 1 ;
+		long lEnd ;
+		long lTime ;
+
+		// Warm up, finding a batch size taking about a millisecond
+		lEnd = System.nanoTime() + Benchmarks.WARMUP * 1000000 ;
+		while ( System.nanoTime() < lEnd )
+		{
+			lTime = Benchmarks.time( op , lBatch ) ;
+			if ( lTime < 1000000 )
+			{
+				lBatch = lBatch * 2 ;
+			}
+		}
+		// Time each round in batches
+		for ( int i = 0 ; i < Benchmarks.ROUNDS ; i ++ )
+		{
+			long lOps = 0 ;
+			long lTotal = 0 ;
+			while ( lTotal < Benchmarks.ROUND * 1000000 )
+			{
+				lTotal = lTotal + Benchmarks.time( op , lBatch ) ;
+				lOps = lOps + lBatch ;
+			}
+			dRounds[i] = ( double ) lTotal / lOps ;
+			dMean = dMean + dRounds[i] / Benchmarks.ROUNDS ;
+		}
+		for ( int i = 0 ; i < Benchmarks.ROUNDS ; i ++ )
+		{
+			dSpread = Math.max( dSpread , Math.abs( dRounds[i] - dMean ) ) ;
+		}
+		Benchmarks.out.printf( "%-40s %14.1f ns/op  +- %.1f%n" , szName , dMean , dSpread ) ;
+		return ;
+	}
+	/** @return the nanoseconds taken by a number of operations */
+	private static long time( final IntSupplier op , final long lOps )
+	{
+		final long lStart = System.nanoTime() ;
+		int iResult = 0 ;
+
+		for ( long l = 0 ; l < lOps ; l ++ )
+		{
+			iResult = iResult + op.getAsInt() ;
+		}
+		final long lTime = System.nanoTime() - lStart ;
+		Benchmarks.iSink = Benchmarks.iSink + iResult ;
+		return lTime ;
+	}
+	/** @return Forth code of about the given length */
+	private static String makeInput( final int iLength )
+	{
+		final StringBuilder sb = new StringBuilder() ;
+
+		while ( sb.length() < iLength )
+		{
+			sb.append( Benchmarks.SAMPLE ) ;
+		}
+		return sb.toString() ;
+	}
+	/** @return an Interpreter using an engine, with loop-heavy words defined */
+	private static Interpreter makeInterpreter( final Interpreter.Engine engine
+			, final boolean bJit )
+	{
+		final Interpreter intp = new Interpreter() ;
+
+		intp.setEngine( engine ) ;
+		intp.setJit( bJit ) ;
+		intp.executeLine( ": sum 0 swap 0 do i dup * + loop ; "
+				+ ": nested 0 swap 0 do 100 0 do i j * + loop loop ; "
+				+ ": fib dup 2 < if else dup 1 - fib swap 2 - fib + then ; " ) ;
+		return intp ;
+	}
+
+	private static void benchLexer()
+	{
+		for ( int iLength = 100 ; iLength <= 10000 ; iLength = iLength * 10 )
+		{
+			// As Parser.parse gives it to the Lexer
+			final String szInput = Benchmarks.makeInput( iLength ) + "  " ;
+			Benchmarks.add( "lexer.tokenise." + iLength
+					, () -> new Lexer().tokenise( szInput ).getLength() ) ;
+			Benchmarks.add( "fastlexer.lex." + iLength
+					, () -> new FastLexer().lex( szInput ).getCount() ) ;
+		}
+		return ;
+	}
+	private static void benchParser()
+	{
+		for ( int iLength = 100 ; iLength <= 10000 ; iLength = iLength * 10 )
+		{
+			final LinkedList<Token> tokens = new Lexer().tokenise(
+					Benchmarks.makeInput( iLength ) + "  " ) ;
+			final TokenBuffer buffer = new FastLexer().lex( Benchmarks.makeInput( iLength ) ) ;
+			Benchmarks.add( "parser.parse." + iLength
+					, () -> new Parser().parse( tokens ).getRoot().getChildCount() ) ;
+			Benchmarks.add( "parser.parse.buffer." + iLength
+					, () -> new Parser().parse( buffer ).getRoot().getChildCount() ) ;
+		}
+		return ;
+	}
+	private static void benchPrograms() throws IOException
+	{
+		final ArrayList<Path> paths = new ArrayList<>() ;
+
+		if ( Files.isDirectory( Paths.get( "tests" ) ) == false )
+		{
+			Benchmarks.out.println( "No tests directory, so no tests/chNN programs" ) ;
+			return ;
+		}
+		try ( DirectoryStream<Path> dirs = Files.newDirectoryStream( Paths.get( "tests" ) , "ch*" ) )
+		{
+			for ( final Path dir : dirs )
+			{
+				try ( DirectoryStream<Path> files = Files.newDirectoryStream( dir , "*.fth" ) )
+				{
+					files.forEach( paths::add ) ;
+				}
+			}
+		}
+		paths.sort( null ) ;
+		for ( final Interpreter.Engine engine : Interpreter.Engine.values() )
+		{
+			final String[] szPrograms = new String[ paths.size() ] ;
+			for ( int i = 0 ; i < szPrograms.length ; i ++ )
+			{
+				szPrograms[i] = new String( Files.readAllBytes( paths.get( i ) ) ) ;
+			}
+			Benchmarks.add( "interpreter.tests." + engine.name().toLowerCase() , () -> {
+				// A new Interpreter for each run, as the programs define words
+				final Interpreter intp = new Interpreter() ;
+				intp.setEngine( engine ) ;
+				for ( int i = 0 ; i < szPrograms.length ; i ++ )
+				{
+					intp.execute( szPrograms[i] ) ;
+				}
+				return intp.getPStack().getSize() ;
+			} ) ;
+		}
+		return ;
+	}
+	private static void benchKernels()
+	{
+		final String[][] szKernels = {
+				{ "sum" , "10000 sum drop" }
+				, { "nested" , "100 nested drop" }
+				, { "fib" , "15 fib drop" }
+		} ;
+
+		for ( final Interpreter.Engine engine : Interpreter.Engine.values() )
+		{
+			for ( int iJit = 0 ; iJit < 2 ; iJit ++ )
+			{
+				final Interpreter intp = Benchmarks.makeInterpreter( engine , iJit == 1 ) ;
+				for ( int i = 0 ; i < szKernels.length ; i ++ )
+				{
+					final String szCode = szKernels[i][1] ;
+					Benchmarks.add( "interpreter." + szKernels[i][0] + "."
+							+ engine.name().toLowerCase() + ( iJit == 1 ? ".jit" : "" )
+							, () -> intp.execute( szCode ) ? 1 : 0 ) ;
+				}
+			}
+		}
+		return ;
+	}
+	private static void benchProgramCache()
+	{
+		// As a console command run again
+		final String szCode = Benchmarks.makeInput( 1000 ) ;
+
+		for ( final Interpreter.Engine engine : Interpreter.Engine.values() )
+		{
+			for ( int iCapacity = 0 ; iCapacity <= ProgramCache.DEFAULT_CAPACITY 
+					; iCapacity = iCapacity + ProgramCache.DEFAULT_CAPACITY )
+			{
+				final Interpreter intp = new Interpreter() ;
+				intp.setEngine( engine ) ;
+				intp.getProgramCache().setCapacity( iCapacity ) ;
+				Benchmarks.add( "interpreter.repeat." + engine.name().toLowerCase()
+						+ ( iCapacity == 0 ? ".uncached" : ".cached" )
+						, () -> intp.execute( szCode ) ? 1 : 0 ) ;
+			}
+		}
+		return ;
+	}
+	private static void benchDictionary()
+	{
+		final Dictionary dict = new Interpreter().getDictionary() ;
+		final String[] szNames = new String[ 64 ] ;
+		final int[] iNext = { 0 } ;
+
+		for ( int i = 0 ; i < szNames.length ; i ++ )
+		{
+			szNames[i] = "Word" + i ;
+			dict.addWord( szNames[i] , i + " ." ) ;
+		}
+		Benchmarks.add( "dictionary.getWord" , () -> {
+			iNext[0] = ( iNext[0] + 1 ) & ( szNames.length - 1 ) ;
+			return dict.getWord( szNames[ iNext[0] ] ).getDefinition().length() ;
+		} ) ;
+		Benchmarks.add( "dictionary.checkWordDefined" , () -> {
+			iNext[0] = ( iNext[0] + 1 ) & ( szNames.length - 1 ) ;
+			return dict.checkWordDefined( szNames[ iNext[0] ] ) ? 1 : 0 ;
+		} ) ;
+		return ;
+	}
+	private static void benchParamStack()
+	{
+		final ParamStack stack = new ParamStack( 1024 ) ;
+		final int[] iValues = new int[ 100 ] ;
+
+		Benchmarks.add( "paramstack.push-pop.100" , () -> {
+			int iRet = 0 ;
+			for ( int i = 0 ; i < 100 ; i ++ )
+			{
+				stack.push( i ) ;
+			}
+			for ( int i = 0 ; i < 100 ; i ++ )
+			{
+				iRet = iRet + stack.pop() ;
+			}
+			return iRet ;
+		} ) ;
+		Benchmarks.add( "paramstack.pushAll-popInto.100" , () -> {
+			stack.pushAll( iValues ) ;
+			stack.popInto( iValues ) ;
+			return iValues[0] ;
+		} ) ;
+		return ;
+	}
+	private static void benchAutocompleter()
+	{
+		final Autocompleter completer = new Autocompleter() ;
+
+		for ( int i = 0 ; i < 1000 ; i ++ )
+		{
+			completer.insert( "word" + i ) ;
+		}
+		Benchmarks.add( "autocompleter.getWordsFromStub.111"
+				, () -> completer.getWordsFromStub( "word1" ).length ) ;
+		Benchmarks.add( "autocompleter.getWordsFromStub.11"
+				, () -> completer.getWordsFromStub( "word99" ).length ) ;
+		return ;
+	}
+
+	public static void main( final String[] args ) throws IOException
+	{
+		boolean bChosen ;
+
+		// The Interpreter prints to System.out and System.err
+		System.setOut( Benchmarks.NOWHERE ) ;
+		System.setErr( Benchmarks.NOWHERE ) ;
+		try
+		{
+			for ( final Map.Entry<String , IntSupplier> entry : Benchmarks.getOperations().entrySet() )
+			{
+				// Run if chosen by any argument, or if there are none
+				bChosen = args.length == 0 ;
+				for ( int i = 0 ; i < args.length ; i ++ )
+				{
+					bChosen = bChosen || entry.getKey().contains( args[i] ) ;
+				}
+				if ( bChosen )
+				{
+					Benchmarks.run( entry.getKey() , entry.getValue() ) ;
+				}
+			}
+		}
+		finally
+		{
+			System.setOut( Benchmarks.out ) ;
+		}
+		return ;
+	}
+}
@@ -0,0 +1,216 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * A compiled program for the bytecode engine. The code is a flat array of
+ * opcodes, each followed by its operands. Strings used by the program
+ * (word names, print strings, definitions) are kept in a constant pool
+ * and referred to by index. Branch operands are absolute indexes into
+ * the code array, so they do not need to be searched for at run time.
+ *
+ */
+public final class Bytecode
+{
+	// Opcodes. Operands are listed after each opcode
+	/** End of program */
+	public static final int HALT = 0 ;
+	/** LITERAL n : pushes n */
+	public static final int LITERAL = 1 ;
+	/** LITERAL_ERROR pool : a literal that could not be parsed */
+	public static final int LITERAL_ERROR = 2 ;
+	/** WORD site : executes a word by name */
+	public static final int WORD = 3 ;
+	/** PRINT pool : prints a string */
+	public static final int PRINT = 4 ;
+	/** DEFINE pool pool : defines a word with a name and definition */
+	public static final int DEFINE = 5 ;
+	/** FORGET pool : reverts or removes a word */
+	public static final int FORGET = 6 ;
+	/** VARIABLE slot : declares a variable */
+	public static final int VARIABLE = 7 ;
+	/** VARIABLE_STORE slot : pops into a variable */
+	public static final int VARIABLE_STORE = 8 ;
+	/** VARIABLE_GET slot : pushes a variable */
+	public static final int VARIABLE_GET = 9 ;
+	/** VARIABLE_PRINT slot : prints a variable */
+	public static final int VARIABLE_PRINT = 10 ;
+	/** UNDEFINED pool : reports an undefined word */
+	public static final int UNDEFINED = 11 ;
+	/** SYNTAX pool : reports invalid syntax */
+	public static final int SYNTAX = 12 ;
+	/** BREAK : breakpoint */
+	public static final int BREAK = 13 ;
+	/** BRANCH_ZERO target : pops, and jumps to target if 0 */
+	public static final int BRANCH_ZERO = 14 ;
+	/** JUMP target : jumps to target */
+	public static final int JUMP = 15 ;
+	/** DO : pops the start and end of a loop and starts a new loop */
+	public static final int DO = 16 ;
+	/** LOOP_TEST target : ends the loop and jumps to target if finished */
+	public static final int LOOP_TEST = 17 ;
+	/** LOOP target : increments the counter and jumps to target */
+	public static final int LOOP = 18 ;
+	/** PLUS_LOOP target : adds the top of the stack to the counter
+	 * and jumps to target */
+	public static final int PLUS_LOOP = 19 ;
+	/** PRIMITIVE id site : executes a primitive, or the word by name 
+	 * if it has been redefined */
+	public static final int PRIMITIVE = 20 ;
+
+	// Superinstructions, numbered after all other opcodes. Each replaces 
+	// the first instruction of a sequence, keeping its operands, and 
+	// executes the whole sequence. The rest of the sequence is left in 
+	// place, and is executed instead if a primitive has been redefined
+	/** LITERAL_OP n : LITERAL n, then PRIMITIVE with an arithmetic 
+	 * or comparison primitive */
+	public static final int LITERAL_OP = 21 ;
+	/** OVER_OVER id site : PRIMITIVE over, PRIMITIVE over */
+	public static final int OVER_OVER = 22 ;
+	/** DUP_MULTIPLY id site : PRIMITIVE dup, PRIMITIVE * */
+	public static final int DUP_MULTIPLY = 23 ;
+	/** SWAP_DROP id site : PRIMITIVE swap, PRIMITIVE drop */
+	public static final int SWAP_DROP = 24 ;
+	/** DROP_DROP id site : PRIMITIVE drop, PRIMITIVE drop */
+	public static final int DROP_DROP = 25 ;
+	/** COMPARE_BRANCH id site : PRIMITIVE with a comparison primitive, 
+	 * then BRANCH_ZERO */
+	public static final int COMPARE_BRANCH = 26 ;
+	/** CONSTANT_FOLD id n : pushes n, the result of LITERAL n1, LITERAL n2,
+	 * PRIMITIVE id, which follow it. Unlike other superinstructions, is 
+	 * put before the sequence rather than replacing its first instruction */
+	public static final int CONSTANT_FOLD = 27 ;
+
+	/** Names of the opcodes, used when displaying */
+	private static final String[] NAMES = {
+			"halt" , "literal" , "literal_error" , "word" , "print" , "define"
+			, "forget" , "variable" , "variable_store" , "variable_get"
+			, "variable_print" , "undefined" , "syntax" , "break"
+			, "branch_zero" , "jump" , "do" , "loop_test" , "loop" , "plus_loop"
+			, "primitive" , "literal_op" , "over_over" , "dup_multiply" 
+			, "swap_drop" , "drop_drop" , "compare_branch" , "constant_fold"
+	} ;
+	/** Number of operands of each opcode */
+	private static final int[] OPERANDS = {
+			0 , 1 , 1 , 1 , 1 , 2
+			, 1 , 1 , 1 , 1
+			, 1 , 1 , 1 , 0
+			, 1 , 1 , 0 , 1 , 1 , 1
+			, 2 , 1 , 2 , 2
+			, 2 , 2 , 2 , 2
+	} ;
+
+	// The instructions
+	private final int[] iCode ;
+	// The constant pool
+	private final String[] szConstants ;
+	// The words called by name, each caching what its name refers to
+	private final CallSite[] sites ;
+	// Whether superinstructions were used
+	private final boolean bOptimised ;
+	// The table the ids of variable names are from, used when displaying
+	private final Symbol symbols ;
+
+	/** Constructor */
+	public Bytecode( final int[] iCode , final String[] szConstants 
+			, final CallSite[] sites , final boolean bOptimised , final Symbol symbols )
+	{
+		this.iCode = iCode ;
+		this.szConstants = szConstants ;
+		this.sites = sites ;
+		this.bOptimised = bOptimised ;
+		this.symbols = symbols ;
+		return ;
+	}
+
+	/** @return the number of operands following an opcode */
+	public static int getOperands( final int iOpcode )
+	{
+		return Bytecode.OPERANDS[ iOpcode ] ;
+	}
+	/** @return the name of an opcode */
+	public static String getName( final int iOpcode )
+	{
+		return Bytecode.NAMES[ iOpcode ] ;
+	}
+	/** @return the number of opcodes */
+	public static int getCount()
+	{
+		return Bytecode.NAMES.length ;
+	}
+
+	/** @return true if the code returns from the instruction at iPC,
+	 * following any jumps, so that a call just before it is a tail call */
+	public boolean checkReturns( final int iPC )
+	{
+		int i = iPC ;
+		while ( this.iCode[ i ] == Bytecode.JUMP )
+		{
+			i = this.iCode[ i + 1 ] ;
+		}
+		return this.iCode[ i ] == Bytecode.HALT ;
+	}
+
+	/** Pretty-printer */
+	// Only used for testing
+	public void display()
+	{
+		int i = 0 ;
+
+		while ( i < this.iCode.length )
+		{
+			String sz = String.format( "%4d  %-16s"
+					, i , Bytecode.NAMES[ this.iCode[ i ] ] ) ;
+			// Print operands
+			for ( int j = 1 ; j <= Bytecode.getOperands( this.iCode[ i ] ) ; j ++ )
+			{
+				sz = sz + " " + this.iCode[ i + j ] ;
+			}
+			// Print string operands
+			switch ( this.iCode[ i ] )
+			{
+			case LITERAL :
+			case LITERAL_OP :
+			case BRANCH_ZERO :
+			case JUMP :
+			case LOOP_TEST :
+			case LOOP :
+			case PLUS_LOOP :
+				break ;
+			case WORD :
+				sz = sz + "   ( " + this.sites[ this.iCode[ i + 1 ] ].getName() + " )" ;
+				break ;
+			case CONSTANT_FOLD :
+				sz = sz + "   ( " + Primitive.getName( this.iCode[ i + 1 ] ) + " )" ;
+				break ;
+			case PRIMITIVE :
+			case OVER_OVER :
+			case DUP_MULTIPLY :
+			case SWAP_DROP :
+			case DROP_DROP :
+			case COMPARE_BRANCH :
+				sz = sz + "   ( " + this.sites[ this.iCode[ i + 2 ] ].getName() + " )" ;
+				break ;
+			case VARIABLE :
+			case VARIABLE_STORE :
+			case VARIABLE_GET :
+			case VARIABLE_PRINT :
+				sz = sz + "   ( " + this.symbols.getName( this.iCode[ i + 1 ] ) + " )" ;
+				break ;
+			default :
+				if ( Bytecode.getOperands( this.iCode[ i ] ) > 0 )
+				{
+					sz = sz + "   ( " + this.szConstants[ this.iCode[ i + 1 ] ] + " )" ;
+				}
+				break ;
+			}
+			System.out.println( sz ) ;
+			i = i + 1 + Bytecode.getOperands( this.iCode[ i ] ) ;
+		}
+		return ;
+	}
+
+	// Getters
+	public int[] getCode() { return this.iCode ; }
+	public String[] getConstants() { return this.szConstants ; }
+	public CallSite[] getSites() { return this.sites ; }
+	public boolean isOptimised() { return this.bOptimised ; }
+}
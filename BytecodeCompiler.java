@@ -0,0 +1,460 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Lowers an AST from the Parser into Bytecode for the bytecode engine.
+ * IF/ELSE/THEN and DO/LOOP are flattened into jumps, with the targets
+ * of the jumps worked out here rather than at run time.
+ *
+ */
+
+import java.util.Arrays;
+
+public class BytecodeCompiler
+{
+	// The instructions emitted so far
+	private int[] iCode ;
+	// The number of ints of iCode in use
+	private int iLength ;
+	// Indexes of the last two instructions, -1 if none
+	private int iLast ;
+	private int iPrevious ;
+	// Index of the last instruction that can be jumped to
+	private int iLabel ;
+	// The constant pool
+	private LinkedList<String> constants ;
+	// The words called by name
+	private LinkedList<CallSite> sites ;
+	// Whether to use superinstructions
+	private final boolean bOptimise ;
+
+	/** Constructor. Compiles without superinstructions */
+	public BytecodeCompiler()
+	{
+		this( false ) ;
+		return ;
+	}
+	/** Constructor
+	 * @param bOptimise is true to replace common sequences of 
+	 * instructions with superinstructions */
+	public BytecodeCompiler( final boolean bOptimise )
+	{
+		this.bOptimise = bOptimise ;
+		this.reset() ;
+		return ;
+	}
+	/** Sets class members to defaults */
+	public void reset()
+	{
+		this.iCode = new int[ 64 ] ;
+		this.iLength = 0 ;
+		this.iLast = -1 ;
+		this.iPrevious = -1 ;
+		this.iLabel = 0 ;
+		this.constants = new LinkedList<String>() ;
+		this.sites = new LinkedList<CallSite>() ;
+		return ;
+	}
+
+	/**
+	 * Compiles an AST into Bytecode
+	 * @param ast is the AST from the Parser
+	 * @return the Bytecode
+	 */
+	public Bytecode compile( final AST ast )
+	{
+		this.reset() ;
+		// Compile the tree, then end the program
+		this.compileExpression( ast.getRoot() ) ;
+		this.emit( Bytecode.HALT ) ;
+		if ( this.bOptimise )
+		{
+			this.fuse() ;
+		}
+
+		return new Bytecode( Arrays.copyOf( this.iCode , this.iLength )
+				, this.constants.toStringArray() 
+				, Arrays.copyOf( this.sites.toArray() , this.sites.getLength() 
+						, CallSite[].class ) 
+				, this.bOptimise , ast.getSymbols() ) ;
+	}
+
+	/**
+	 * Compiles the children of an AST.Expression
+	 * @param expr is the Expression
+	 */
+	private void compileExpression( final AST.Expression expr )
+	{
+		AST.Expression child ;
+		int iPatch ;
+		int iTop ;
+
+		// For each child
+		for ( int i = 0 ; i < expr.getChildCount() ; i ++ )
+		{
+			child = expr.getChild( i ) ;
+
+			// If not leaf, compile its children
+			if ( child.getContent() == null )
+			{
+				this.compileExpression( child ) ;
+				continue ;
+			}
+
+			switch ( child.getContent().getType() )
+			{
+			case BREAK :
+				this.emit( Bytecode.BREAK ) ;
+				break ;
+			case COLON : // Advances i by 3
+				this.emit( Bytecode.DEFINE
+						, this.addConstant( expr , ++ i )
+						, this.addConstant( expr , ++ i ) ) ;
+				++ i ; // Skip semicolon
+				break ;
+			case FORGET : // Advances i by 1
+				this.emit( Bytecode.FORGET , this.addConstant( expr , ++ i ) ) ;
+				break ;
+			case PRINT_START : // Advances i by 2
+				this.emit( Bytecode.PRINT , this.addConstant( expr , ++ i ) ) ;
+				++ i ;
+				break ;
+			case VARIABLE : // Advances i by 1
+				// Variable names were resolved by the Parser
+				this.emit( Bytecode.VARIABLE 
+						, expr.getChild( ++ i ).getContent().getSymbol() ) ;
+				break ;
+			case VARIABLE_NAME : // Advances i by 1
+				this.compileVariable( expr , i ) ;
+				++ i ;
+				break ;
+			case DO : // Advances i by 2
+				// DO, then test the counter at the start of each iteration
+				this.emit( Bytecode.DO ) ;
+				iTop = this.label() ;
+				this.emit( Bytecode.LOOP_TEST , 0 ) ;
+				iPatch = this.iLength - 1 ;
+				// Body of the loop
+				this.compileExpression( expr.getChild( ++ i ) ) ;
+				// 'loop' or '+loop' jumps back to the test
+				if ( expr.getChild( ++ i ).getContent()
+						.getString().equalsIgnoreCase( "+loop" ) )
+				{
+					this.emit( Bytecode.PLUS_LOOP , iTop ) ;
+				}
+				else
+				{
+					this.emit( Bytecode.LOOP , iTop ) ;
+				}
+				// Test exits to after the loop
+				this.iCode[ iPatch ] = this.label() ;
+				break ;
+			case IF : // Advances i by 4
+				this.compileIfStatement( expr , i ) ;
+				i = i + 4 ;
+				break ;
+			case LITERAL :
+				// Literals were parsed by the Parser
+				if ( child.getContent().hasValue() )
+				{
+					this.emit( Bytecode.LITERAL , child.getContent().getValue() ) ;
+				}
+				else
+				{
+					this.compileLiteral( child.getContent().getString() ) ;
+				}
+				break ;
+			case WORD :
+				// Primitives were resolved by the Parser
+				if ( child.getContent().getPrimitive() == Primitive.NONE )
+				{
+					this.emit( Bytecode.WORD , this.addSite( child.getContent() ) ) ;
+				}
+				else
+				{
+					// Work out arithmetic on literals now
+					if ( this.bOptimise && Primitive.checkBinary( child.getContent().getPrimitive() ) )
+					{
+						this.fold( child.getContent().getPrimitive() ) ;
+					}
+					this.emit( Bytecode.PRIMITIVE , child.getContent().getPrimitive()
+							, this.addSite( child.getContent() ) ) ;
+				}
+				break ;
+			case END :
+			case COMMENT_START :
+			case COMMENT_CONTENT :
+			case COMMENT_END :
+				// Ignore these tokens
+				break ;
+			default :
+				// Invalid syntax, reported when executed
+				this.emit( Bytecode.SYNTAX , this.addConstant( expr , i ) ) ;
+				break ;
+			}
+		}
+		return ;
+	}
+
+	/** Compiles a variable operation, the name being at index i */
+	private void compileVariable( final AST.Expression expr , final int i )
+	{
+		// Variable names were resolved by the Parser
+		final int iSlot = expr.getChild( i ).getContent().getSymbol() ;
+		Token.Type type = null ;
+
+		// Operation is the next token
+		if ( i + 1 < expr.getChildCount()
+				&& expr.getChild( i + 1 ).getContent() != null )
+		{
+			type = expr.getChild( i + 1 ).getContent().getType() ;
+		}
+
+		if ( type == Token.Type.VARIABLE_STORE )
+		{
+			this.emit( Bytecode.VARIABLE_STORE , iSlot ) ;
+		}
+		else if ( type == Token.Type.VARIABLE_GET )
+		{
+			this.emit( Bytecode.VARIABLE_GET , iSlot ) ;
+		}
+		else if ( type == Token.Type.VARIABLE_PRINT )
+		{
+			this.emit( Bytecode.VARIABLE_PRINT , iSlot ) ;
+		}
+		else
+		{
+			// Undefined variable operation (word)
+			this.emit( Bytecode.UNDEFINED , this.addConstant( expr , i ) ) ;
+		}
+		return ;
+	}
+
+	/** Compiles an if statement, the 'if' being at index i */
+	private void compileIfStatement( final AST.Expression expr , final int i )
+	{
+		final int iElse ;
+		final int iThen ;
+
+		// If false, jump to the else clause
+		this.emit( Bytecode.BRANCH_ZERO , 0 ) ;
+		iElse = this.iLength - 1 ;
+		// If clause, then jump past the else clause
+		this.compileExpression( expr.getChild( i + 1 ) ) ;
+		this.emit( Bytecode.JUMP , 0 ) ;
+		iThen = this.iLength - 1 ;
+		// Else clause
+		this.iCode[ iElse ] = this.label() ;
+		this.compileExpression( expr.getChild( i + 3 ) ) ;
+		this.iCode[ iThen ] = this.label() ;
+		return ;
+	}
+
+	/** Compiles a literal, which is parsed now rather than when executed */
+	private void compileLiteral( final String szLiteral )
+	{
+		try
+		{
+			this.emit( Bytecode.LITERAL , Integer.parseInt( szLiteral ) ) ;
+		}
+		catch ( final NumberFormatException e )
+		{
+			// Too large for an int. Report the error when executed,
+			// as the tree-walking interpreter does
+			this.emit( Bytecode.LITERAL_ERROR , this.addConstant( szLiteral ) ) ;
+		}
+		return ;
+	}
+
+	/** Adds the content of the child at index i to the constant pool
+	 * @return the index of the constant */
+	private int addConstant( final AST.Expression expr , final int i )
+	{
+		return this.addConstant( expr.getChild( i )
+				.getContent().getString() ) ;
+	}
+	/** Adds a String to the constant pool
+	 * @return the index of the constant */
+	private int addConstant( final String sz )
+	{
+		this.constants.add( sz ) ;
+		return this.constants.getLength() - 1 ;
+	}
+
+	/** Puts a CONSTANT_FOLD holding the result of a primitive before the 
+	 * last two instructions, if they are literals that cannot be jumped 
+	 * between. The primitive is emitted after, so that the literals and
+	 * primitive are executed instead if the primitive is redefined */
+	private void fold( final int iPrimitive )
+	{
+		final int iFirst = this.iPrevious ; // Index of the first literal
+		final int iSecond = this.iLast ;
+		final int n1 ;
+		final int n2 ;
+
+		if ( iFirst >= this.iLabel 
+				&& this.iCode[ iFirst ] == Bytecode.LITERAL 
+				&& this.iCode[ iSecond ] == Bytecode.LITERAL )
+		{
+			n1 = this.iCode[ iFirst + 1 ] ;
+			n2 = this.iCode[ iSecond + 1 ] ;
+			// Division by zero is left to report its error
+			if ( ( iPrimitive == Primitive.DIVIDE || iPrimitive == Primitive.MOD ) 
+					&& n2 == 0 )
+			{
+				return ;
+			}
+			// Make room before the literals
+			this.emit( 0 , 0 , 0 ) ;
+			System.arraycopy( this.iCode , iFirst , this.iCode , iFirst + 3 , 4 ) ;
+			this.iCode[ iFirst ] = Bytecode.CONSTANT_FOLD ;
+			this.iCode[ iFirst + 1 ] = iPrimitive ;
+			this.iCode[ iFirst + 2 ] = Primitive.calculate( iPrimitive , n1 , n2 ) ;
+			// The literals have moved
+			this.iPrevious = iFirst + 3 ;
+			this.iLast = iSecond + 3 ;
+		}
+		return ;
+	}
+
+	/** Replaces the first instruction of each common sequence of two 
+	 * instructions with a superinstruction. As the rest of the sequence 
+	 * is left in place, no jumps need to be changed */
+	private void fuse()
+	{
+		int i = 0 ;
+		int j ;
+
+		while ( i < this.iLength )
+		{
+			// Index of the next instruction
+			j = i + 1 + Bytecode.getOperands( this.iCode[ i ] ) ;
+			if ( j < this.iLength )
+			{
+				this.iCode[ i ] = this.fuse( i , j ) ;
+			}
+			i = j ;
+		}
+		return ;
+	}
+	/** @return the superinstruction for the instructions at i and j, 
+	 * or the instruction at i if there is not one */
+	private int fuse( final int i , final int j )
+	{
+		int iRet = this.iCode[ i ] ;
+
+		// Literal, then arithmetic or comparison
+		if ( this.iCode[ i ] == Bytecode.LITERAL && this.iCode[ j ] == Bytecode.PRIMITIVE )
+		{
+			switch ( this.iCode[ j + 1 ] )
+			{
+			case Primitive.ADD :
+			case Primitive.SUBTRACT :
+			case Primitive.MULTIPLY :
+			case Primitive.LESSER :
+			case Primitive.GREATER :
+			case Primitive.EQUAL :
+			case Primitive.NOT_EQUAL :
+				iRet = Bytecode.LITERAL_OP ;
+				break ;
+			case Primitive.DIVIDE :
+			case Primitive.MOD :
+				// Division by zero is left to report its error
+				if ( this.iCode[ i + 1 ] != 0 )
+				{
+					iRet = Bytecode.LITERAL_OP ;
+				}
+				break ;
+			}
+		}
+		// Two primitives
+		else if ( this.iCode[ i ] == Bytecode.PRIMITIVE && this.iCode[ j ] == Bytecode.PRIMITIVE )
+		{
+			if ( this.iCode[ i + 1 ] == Primitive.OVER && this.iCode[ j + 1 ] == Primitive.OVER )
+			{
+				iRet = Bytecode.OVER_OVER ;
+			}
+			else if ( this.iCode[ i + 1 ] == Primitive.DUP && this.iCode[ j + 1 ] == Primitive.MULTIPLY )
+			{
+				iRet = Bytecode.DUP_MULTIPLY ;
+			}
+			else if ( this.iCode[ i + 1 ] == Primitive.SWAP && this.iCode[ j + 1 ] == Primitive.DROP )
+			{
+				iRet = Bytecode.SWAP_DROP ;
+			}
+			else if ( this.iCode[ i + 1 ] == Primitive.DROP && this.iCode[ j + 1 ] == Primitive.DROP )
+			{
+				iRet = Bytecode.DROP_DROP ;
+			}
+		}
+		// Comparison, then if
+		else if ( this.iCode[ i ] == Bytecode.PRIMITIVE && this.iCode[ j ] == Bytecode.BRANCH_ZERO )
+		{
+			switch ( this.iCode[ i + 1 ] )
+			{
+			case Primitive.LESSER :
+			case Primitive.GREATER :
+			case Primitive.EQUAL :
+			case Primitive.NOT_EQUAL :
+				iRet = Bytecode.COMPARE_BRANCH ;
+				break ;
+			}
+		}
+		return iRet ;
+	}
+
+	/** Adds a word called by name. The token's CallSite is used, so that
+	 * the lookup is shared by every compilation of the token
+	 * @return the index of the CallSite */
+	private int addSite( final Token token )
+	{
+		this.sites.add( token.getCallSite() ) ;
+		return this.sites.getLength() - 1 ;
+	}
+
+	/** @return the index of the next instruction, which is to be jumped to */
+	private int label()
+	{
+		this.iLabel = this.iLength ;
+		return this.iLabel ;
+	}
+
+	/** Adds an instruction to the code */
+	private void emit( final int... iInstruction )
+	{
+		this.iPrevious = this.iLast ;
+		this.iLast = this.iLength ;
+		// Double the size of the array if full
+		if ( this.iLength + iInstruction.length > this.iCode.length )
+		{
+			this.iCode = Arrays.copyOf( this.iCode , this.iCode.length * 2 ) ;
+		}
+		for ( int i = 0 ; i < iInstruction.length ; i ++ )
+		{
+			this.iCode[ this.iLength ++ ] = iInstruction[ i ] ;
+		}
+		return ;
+	}
+
+	// For testing
+	public static void main( final String[] args )
+	{
+		final String[] tests = {
+				"1 2 + . "
+				, ": sq dup * ; 5 sq . "
+				, "0 if .\" true \" else .\" false \" then "
+				, "10 0 do 5 0 do i j * . loop cr loop "
+				, "10 0 do i . 2 +loop "
+				, "variable a 10 a ! a @ . a ? "
+				, "over over < if drop else swap drop then 1 + dup * "
+				, "10 3 * . 7 0 / . 1 if 2 else 3 then 4 + . "
+		} ;
+		for ( int i = 0 ; i < tests.length ; i ++ )
+		{
+			System.out.println( tests[i] ) ;
+			new BytecodeCompiler().compile( new Parser().parse( tests[i] ) ).display() ;
+			System.out.println( "( With superinstructions )" ) ;
+			new BytecodeCompiler( true ).compile( new Parser().parse( tests[i] ) ).display() ;
+			System.out.println() ;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * An inline cache for a word called by name. Remembers what the name
+ * was found to be the last time it was looked up, along with the
+ * generation of the Dictionary at the time, so that the name only needs
+ * to be looked up again once the Dictionary has changed.
+ *
+ */
+public final class CallSite
+{
+	// What the name was found to be
+	/** A user-defined word, to be called */
+	public static final int WORD = 0 ;
+	/** A word defined as itself, to be executed as a primitive */
+	public static final int PRIMITIVE = 1 ;
+	/** A variable, which does nothing */
+	public static final int VARIABLE = 2 ;
+	/** Not in the dictionary */
+	public static final int UNDEFINED = 3 ;
+
+	// The name of the word called
+	private final String szName ;
+	// The generation of the Dictionary when last looked up. 0 if never
+	private int iGeneration = 0 ;
+	// What the name was found to be
+	private int iKind = CallSite.UNDEFINED ;
+	// The Word found, if WORD
+	private Word word = null ;
+	// The id of the primitive, if PRIMITIVE
+	private int iPrimitive = Primitive.NONE ;
+
+	/** Constructor */
+	public CallSite( final String szName )
+	{
+		this.szName = szName ;
+		return ;
+	}
+
+	/** Looks up the name again if the Dictionary has changed since it
+	 * was last looked up */
+	public void update( final Dictionary dict )
+	{
+		if ( this.iGeneration != dict.getGeneration() )
+		{
+			this.lookup( dict ) ;
+		}
+		return ;
+	}
+	/** Looks up the name in the Dictionary */
+	private void lookup( final Dictionary dict )
+	{
+		this.word = dict.getWord( this.szName.trim() ) ;
+		this.iPrimitive = Primitive.NONE ;
+
+		// If defined as self, is primitive
+		if ( this.word != null && this.word.getDefinition().trim()
+				.equalsIgnoreCase( this.szName.trim() ) )
+		{
+			this.iKind = CallSite.PRIMITIVE ;
+			this.iPrimitive = Primitive.lookup( this.szName ) ;
+			this.word = null ;
+		}
+		else if ( this.word != null )
+		{
+			this.iKind = CallSite.WORD ;
+		}
+		else if ( dict.checkVariableDefined( this.szName ) )
+		{
+			this.iKind = CallSite.VARIABLE ;
+		}
+		else
+		{
+			this.iKind = CallSite.UNDEFINED ;
+		}
+		this.iGeneration = dict.getGeneration() ;
+		return ;
+	}
+
+	// Getters
+	public String getName() { return this.szName ; }
+	public int getKind() { return this.iKind ; }
+	public Word getWord() { return this.word ; }
+	public int getPrimitive() { return this.iPrimitive ; }
+}
@@ -0,0 +1,199 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Call stack of user-defined words. Holds where to return to in the
+ * calling code for each word being executed, innermost word on top, so
+ * that the bytecode engine can call words without recursing on the Java
+ * stack. Its maximum size limits how deeply words can be nested.
+ * Changed only by the Interpreter's thread. Other threads can copy the
+ * names through getNames, which is guarded by a sequence lock so that
+ * the Interpreter's thread never waits.
+ *
+ */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+public class CallStack
+{
+	/** Default maximum number of nested calls */
+	public static final int DEFAULT_MAX_SIZE = 1 << 16 ;
+	// Number of times getNames tries to copy the names while they change
+	private static final int MAX_TRIES = 16 ;
+	// Accesses iVersion with memory ordering
+	private static final VarHandle VERSION ;
+
+	static
+	{
+		try
+		{
+			VERSION = MethodHandles.lookup().findVarHandle( CallStack.class , "iVersion" , int.class ) ;
+		}
+		catch ( final ReflectiveOperationException e )
+		{
+			throw new ExceptionInInitializerError( e ) ;
+		}
+	}
+
+	private final int iMaxSize ;
+	private int iSize = 0 ;
+	// One element of each array per call
+	private Bytecode[] callers = null ; // Code of the calling word
+	private int[] iReturns = null ; // Index of the next instruction in the calling word
+	private boolean[] bErrors = null ; // Whether errors occurred in the calling word
+	private String[] szNames = null ; // Name of the word called
+	private int[] iLoops = null ; // Number of loops running when called
+	// Increased before and after each change, so is odd while changing
+	private int iVersion = 0 ;
+
+	/** Constructor. Creates an empty call stack with the default maximum size */
+	public CallStack()
+	{
+		this( CallStack.DEFAULT_MAX_SIZE ) ;
+		return ;
+	}
+	/** Constructor. Creates an empty call stack
+	 * @param iMaxSize : the maximum number of nested calls */
+	public CallStack( final int iMaxSize )
+	{
+		this.iMaxSize = iMaxSize ;
+		this.reset() ;
+		return ;
+	}
+	/** Empties the stack */
+	public void reset()
+	{
+		final int iLength = Math.max( Math.min( 16 , this.iMaxSize ) , 1 ) ;
+
+		this.beginChange() ;
+		this.callers = new Bytecode[ iLength ] ;
+		this.iReturns = new int[ iLength ] ;
+		this.bErrors = new boolean[ iLength ] ;
+		this.szNames = new String[ iLength ] ;
+		this.iLoops = new int[ iLength ] ;
+		this.iSize = 0 ;
+		this.endChange() ;
+		return ;
+	}
+
+	/** Starts a call of a word
+	 * @param caller : the code of the calling word, null if not bytecode
+	 * @param iReturn : the index of the instruction to return to
+	 * @param bError : whether errors have occurred in the calling word
+	 * @param szName : the name of the word called
+	 * @param iLoops : the number of loops running
+	 * @return false if the stack is full, so the word cannot be called */
+	public boolean push( final Bytecode caller , final int iReturn
+			, final boolean bError , final String szName , final int iLoops )
+	{
+		final int iLength ;
+
+		if ( this.iSize >= this.iMaxSize )
+		{
+			return false ;
+		}
+		this.beginChange() ;
+		// Double the size of the arrays if full
+		if ( this.iSize == this.callers.length )
+		{
+			iLength = Math.min( this.iSize * 2 , this.iMaxSize ) ;
+			this.callers = Arrays.copyOf( this.callers , iLength ) ;
+			this.iReturns = Arrays.copyOf( this.iReturns , iLength ) ;
+			this.bErrors = Arrays.copyOf( this.bErrors , iLength ) ;
+			this.szNames = Arrays.copyOf( this.szNames , iLength ) ;
+			this.iLoops = Arrays.copyOf( this.iLoops , iLength ) ;
+		}
+		this.callers[ this.iSize ] = caller ;
+		this.iReturns[ this.iSize ] = iReturn ;
+		this.bErrors[ this.iSize ] = bError ;
+		this.szNames[ this.iSize ] = szName ;
+		this.iLoops[ this.iSize ] = iLoops ;
+		++ this.iSize ;
+		this.endChange() ;
+		return true ;
+	}
+	/** Ends the innermost call */
+	public void pop()
+	{
+		this.beginChange() ;
+		-- this.iSize ;
+		// Do not keep the calling code alive
+		this.callers[ this.iSize ] = null ;
+		this.endChange() ;
+		return ;
+	}
+
+	/** Ends all calls above a number of calls. Used when an error stops
+	 * calls from returning normally */
+	public void setSize( final int iSize )
+	{
+		while ( this.iSize > iSize )
+		{
+			this.pop() ;
+		}
+		return ;
+	}
+	/** Sets the name of the word called by the innermost call. Used when
+	 * the call is replaced by a tail call */
+	public void setName( final String szName )
+	{
+		this.beginChange() ;
+		this.szNames[ this.iSize - 1 ] = szName ;
+		this.endChange() ;
+		return ;
+	}
+	/** Makes the version odd before a change. The fence stops the change
+	 * being seen before the version */
+	private void beginChange()
+	{
+		VERSION.setOpaque( this , this.iVersion + 1 ) ;
+		VarHandle.storeStoreFence() ;
+		return ;
+	}
+	/** Makes the version even after a change, released so that the
+	 * change is seen by a thread that sees the version */
+	private void endChange()
+	{
+		VERSION.setRelease( this , this.iVersion + 1 ) ;
+		return ;
+	}
+
+	// Getters for the innermost call
+	public Bytecode getCaller() { return this.callers[ this.iSize - 1 ] ; }
+	public int getReturn() { return this.iReturns[ this.iSize - 1 ] ; }
+	public boolean getError() { return this.bErrors[ this.iSize - 1 ] ; }
+	public String getName() { return this.szNames[ this.iSize - 1 ] ; }
+	public int getLoops() { return this.iLoops[ this.iSize - 1 ] ; }
+	/** Gets the names of the words being called, outermost first. May be
+	 * called by another thread, such as a sampling profiler. The names 
+	 * are copied, then copied again if the version shows that the stack
+	 * changed while copying, so a copy is never a mix of two states
+	 * @return a copy of the names, or an empty array if the stack kept 
+	 * changing */
+	public String[] getNames()
+	{
+		String[] szNames ;
+		String[] ret ;
+		int iBefore ;
+
+		for ( int i = 0 ; i < CallStack.MAX_TRIES ; i ++ )
+		{
+			iBefore = ( int ) VERSION.getAcquire( this ) ;
+			// Null if this thread sees the stack before it was reset
+			szNames = this.szNames ;
+			ret = szNames == null ? new String[ 0 ] 
+					: Arrays.copyOf( szNames , Math.max( Math.min( this.iSize , szNames.length ) , 0 ) ) ;
+			// Finish copying before reading the version again
+			VarHandle.loadLoadFence() ;
+			if ( ( iBefore & 1 ) == 0 && ( int ) VERSION.getOpaque( this ) == iBefore )
+			{
+				return ret ;
+			}
+		}
+		return new String[ 0 ] ;
+	}
+	// Getters
+	public int getSize() { return this.iSize ; }
+	public int getMaxSize() { return this.iMaxSize ; }
+}
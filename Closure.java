@@ -0,0 +1,16 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Code compiled by the ClosureCompiler. Each closure holds what it needs
+ * to run already looked up, such as the closures of its children, its
+ * number or its primitive.
+ *
+ */
+@FunctionalInterface
+public interface Closure
+{
+	/** Runs the code
+	 * @param intp is the Interpreter to run the code in
+	 * @return false if no errors, true otherwise */
+	boolean run( Interpreter intp ) ;
+}
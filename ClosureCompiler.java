@@ -0,0 +1,418 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Compiles an AST from the Parser into a tree of Closures. Runs with the
+ * same results as Interpreter.executeExpression, but the token types are
+ * only switched on once, when compiling, and each closure holds its
+ * children in an array instead of looking them up in a LinkedList.
+ *
+ */
+
+import java.util.Arrays;
+
+public class ClosureCompiler
+{
+	/** Constructor */
+	public ClosureCompiler()
+	{
+		return ;
+	}
+
+	/**
+	 * Compiles an AST
+	 * @param ast is the AST from the Parser
+	 * @return the Closure running the AST
+	 */
+	public Closure compile( final AST ast )
+	{
+		return this.compile( ast.getRoot() ) ;
+	}
+
+	/** Compiles an Expression, to run in the same way as executeExpression */
+	private Closure compile( final AST.Expression expr )
+	{
+		final Closure[] steps ;
+		final boolean[] bChildren ;
+		final Closure ret ;
+		int iSteps = 0 ;
+		AST.Expression child ;
+
+		// If attempting to execute leaf node
+		// (should never happen, but here just in case)
+		if ( expr.isLeaf() )
+		{
+			return intp -> {
+				intp.printError( Interpreter.ErrorType.UNEXPECTED , "[INTERNAL ERROR]" ) ;
+				return true ;
+			} ;
+		}
+
+		// One step per child at most
+		steps = new Closure[ expr.getChildCount() ] ;
+		bChildren = new boolean[ steps.length ] ;
+		for ( int i = 0 ; i < expr.getChildCount() ; i ++ )
+		{
+			child = expr.getChild( i ) ;
+			if ( child.getContent() == null )
+			{
+				// Child expressions are skipped once errors have occurred
+				bChildren[ iSteps ] = true ;
+				steps[ iSteps ++ ] = this.compile( child ) ;
+				continue ;
+			}
+			// The tokens following a token must be where the Parser puts
+			// them. If not, the tree walker is left to handle the errors
+			switch ( child.getContent().getType() )
+			{
+			case BREAK :
+				// Call method handling breakpoints
+				steps[ iSteps ++ ] = intp -> {
+					intp.breakpoint() ;
+					return false ;
+				} ;
+				break ;
+			case COLON : // Advances i by 3
+				if ( this.checkLeaf( expr , i + 1 ) == false
+						|| this.checkLeaf( expr , i + 2 ) == false )
+				{
+					return this.interpret( expr ) ;
+				}
+				steps[ iSteps ++ ] = this.compileColon(
+						expr.getChild( i + 1 ).getContent().getString()
+						, expr.getChild( i + 2 ).getContent().getString() ) ;
+				i = i + 3 ;
+				break ;
+			case FORGET : // Advances i by 1
+				if ( this.checkLeaf( expr , i + 1 ) == false )
+				{
+					return this.interpret( expr ) ;
+				}
+				steps[ iSteps ++ ] = this.compileForget(
+						expr.getChild( ++ i ).getContent().getString() ) ;
+				break ;
+			case PRINT_START : // Advances i by 2
+				if ( this.checkLeaf( expr , i + 1 ) == false )
+				{
+					return this.interpret( expr ) ;
+				}
+				steps[ iSteps ++ ] = this.compilePrint(
+						expr.getChild( i + 1 ).getContent().getString() ) ;
+				i = i + 2 ;
+				break ;
+			case VARIABLE : // Advances i by 1
+				if ( this.checkLeaf( expr , i + 1 ) == false )
+				{
+					return this.interpret( expr ) ;
+				}
+				steps[ iSteps ++ ] = this.compileVariable(
+						expr.getChild( ++ i ).getContent().getSymbol() ) ;
+				break ;
+			case VARIABLE_NAME : // Advances i by 1
+				if ( this.checkLeaf( expr , i + 1 ) == false )
+				{
+					return this.interpret( expr ) ;
+				}
+				steps[ iSteps ++ ] = this.compileVariableName( child.getContent()
+						, expr.getChild( ++ i ).getContent().getType() ) ;
+				break ;
+			case DO :
+				// The loop is the rest of the expression
+				steps[ iSteps ++ ] = this.compileDoLoop( expr , i + 1 ) ;
+				i = expr.getChildCount() ;
+				break ;
+			case IF :
+				// Only as the Parser puts it: if, clause, else, clause, then
+				if ( i != 0 || expr.getChildCount() != 5
+						|| this.checkLeaf( expr , 2 ) == false
+						|| this.checkLeaf( expr , 4 ) == false
+						|| expr.getChild( 2 ).getContent().getType() != Token.Type.ELSE
+						|| expr.getChild( 4 ).getContent().getType() != Token.Type.THEN )
+				{
+					return this.interpret( expr ) ;
+				}
+				steps[ iSteps ++ ] = this.compileIfStatement(
+						this.compile( expr.getChild( 1 ) )
+						, this.compile( expr.getChild( 3 ) ) ) ;
+				i = expr.getChildCount() ;
+				break ;
+			case LITERAL :
+				steps[ iSteps ++ ] = this.compileLiteral( child.getContent() ) ;
+				break ;
+			case WORD :
+				steps[ iSteps ++ ] = this.compileWord( child.getContent() ) ;
+				break ;
+			case END :
+			case COMMENT_START :
+			case COMMENT_CONTENT :
+			case COMMENT_END :
+				// Ignore these tokens
+				break ;
+			default :
+				steps[ iSteps ++ ] = this.compileSyntaxError( child.getContent().getString() ) ;
+				break ;
+			}
+		}
+
+		ret = this.compileSequence( Arrays.copyOf( steps , iSteps )
+				, Arrays.copyOf( bChildren , iSteps ) ) ;
+		return ret ;
+	}
+	/** @return true if the expression has a leaf node at index i */
+	private boolean checkLeaf( final AST.Expression expr , final int i )
+	{
+		return i < expr.getChildCount()
+				&& expr.getChild( i ).getContent() != null ;
+	}
+	/** Runs an expression the Parser would not produce with the tree walker */
+	private Closure interpret( final AST.Expression expr )
+	{
+		return intp -> intp.executeExpression( expr ) ;
+	}
+
+	/** Compiles the steps of an expression, run in order */
+	private Closure compileSequence( final Closure[] steps , final boolean[] bChildren )
+	{
+		// A single step does not need a loop
+		if ( steps.length == 1 )
+		{
+			return steps[0] ;
+		}
+		return intp -> {
+			boolean bRC = false ;
+
+			for ( int i = 0 ; i < steps.length ; i ++ )
+			{
+				// As executeExpression, child expressions are not executed
+				// after an error
+				if ( bChildren[i] == false )
+				{
+					bRC = steps[i].run( intp ) || bRC ;
+				}
+				else if ( bRC == false )
+				{
+					bRC = steps[i].run( intp ) ;
+				}
+			}
+			return bRC ;
+		} ;
+	}
+	private Closure compileColon( final String szName , final String szDefinition )
+	{
+		return intp -> {
+			// Add definition
+			intp.getDictionary().addWord( szName , szDefinition ) ;
+			return false ;
+		} ;
+	}
+	private Closure compileForget( final String szName )
+	{
+		return intp -> {
+			// Revert or remove word
+			intp.getDictionary().undefineWord( szName ) ;
+			return false ;
+		} ;
+	}
+	private Closure compilePrint( final String szText )
+	{
+		return intp -> {
+			System.out.print( szText ) ;
+			return false ;
+		} ;
+	}
+	private Closure compileVariable( final int iSymbol )
+	{
+		return intp -> {
+			// Define next name
+			intp.getDictionary().addVariable( iSymbol ) ;
+			return false ;
+		} ;
+	}
+	/** Compiles a variable name followed by an operation */
+	private Closure compileVariableName( final Token name , final Token.Type operation )
+	{
+		final int iSymbol = name.getSymbol() ;
+		final String szName = name.getString() ;
+
+		switch ( operation )
+		{
+		case VARIABLE_STORE :
+			return intp -> {
+				// Pop stack into variable
+				intp.getDictionary().setVariable( iSymbol , intp.getPStack().pop() ) ;
+				return false ;
+			} ;
+		case VARIABLE_GET :
+			return intp -> {
+				// Push variable value to stack
+				intp.getPStack().push( intp.getDictionary().getVariable( iSymbol ) ) ;
+				return false ;
+			} ;
+		case VARIABLE_PRINT :
+			return intp -> {
+				// Print variable value
+				System.out.print( intp.getDictionary().getVariable( iSymbol ) ) ;
+				return false ;
+			} ;
+		default :
+			return intp -> {
+				// Undefined variable operation (word), print error
+				intp.printError( Interpreter.ErrorType.WORDUNDEFINED , szName ) ;
+				return false ;
+			} ;
+		}
+	}
+	/** Compiles a loop, from the children of expr after 'do'.
+	 * Errors in the loop do not stop it, as in execDoLoop */
+	private Closure compileDoLoop( final AST.Expression expr , final int iFirst )
+	{
+		final Closure[] body = new Closure[ expr.getChildCount() - iFirst ] ;
+		AST.Expression child ;
+
+		for ( int i = 0 ; i < body.length ; i ++ )
+		{
+			child = expr.getChild( iFirst + i ) ;
+			if ( child.getContent() != null
+					&& child.getContent().getType() == Token.Type.LOOP )
+			{
+				body[i] = this.compileLoop(
+						child.getContent().getString().equalsIgnoreCase( "+loop" ) ) ;
+			}
+			else
+			{
+				body[i] = this.compile( child ) ;
+			}
+		}
+
+		return intp -> {
+			// Start new loop. Start is on top of end
+			intp.getLStack().push( intp.getPStack().pop() , intp.getPStack().pop() ) ;
+			// While counter has not reached end point
+			while ( intp.getLStack().checkRunning() )
+			{
+				// Each iteration is a step
+				intp.useIteration() ;
+				for ( int i = 0 ; i < body.length ; i ++ )
+				{
+					body[i].run( intp ) ;
+				}
+			}
+			// End loop
+			intp.getLStack().pop() ;
+			return false ;
+		} ;
+	}
+	/** Compiles 'loop', or '+loop' if bPlus */
+	private Closure compileLoop( final boolean bPlus )
+	{
+		if ( bPlus )
+		{
+			return intp -> {
+				// Add top of stack to counter
+				intp.getLStack().increment( intp.getPStack().pop() ) ;
+				return false ;
+			} ;
+		}
+		return intp -> {
+			// Increment counter
+			intp.getLStack().increment( 1 ) ;
+			return false ;
+		} ;
+	}
+	/** Compiles an if statement. Errors in the clauses are not returned,
+	 * as in execIfStatement */
+	private Closure compileIfStatement( final Closure ifClause , final Closure elseClause )
+	{
+		return intp -> {
+			// 0 is false
+			if ( intp.getPStack().pop() == 0 )
+			{
+				elseClause.run( intp ) ;
+			}
+			else
+			{
+				ifClause.run( intp ) ;
+			}
+			return false ;
+		} ;
+	}
+	private Closure compileLiteral( final Token token )
+	{
+		final int iValue ;
+		final String szValue ;
+
+		// Parsed by the Parser if possible
+		if ( token.hasValue() )
+		{
+			iValue = token.getValue() ;
+			return intp -> {
+				intp.getPStack().push( iValue ) ;
+				return false ;
+			} ;
+		}
+		// Otherwise throws the same error as the tree walker each time
+		szValue = token.getString() ;
+		return intp -> {
+			intp.getPStack().push( Integer.parseInt( szValue ) ) ;
+			return false ;
+		} ;
+	}
+	private Closure compileWord( final Token token )
+	{
+		final int iPrimitive = token.getPrimitive() ;
+		final CallSite site = token.getCallSite() ;
+		final String szName = token.getString() ;
+
+		// If a primitive that has not been redefined, execute
+		// without looking up the word
+		if ( iPrimitive != Primitive.NONE )
+		{
+			return intp -> {
+				if ( intp.getDictionary().checkPrimitive( iPrimitive ) )
+				{
+					intp.execPrimitive( iPrimitive ) ;
+				}
+				else if ( intp.execWord( site ) )
+				{
+					// If errors occurred, print error
+					intp.printError( Interpreter.ErrorType.WORDUNDEFINED , szName ) ;
+				}
+				return false ;
+			} ;
+		}
+		return intp -> {
+			if ( intp.execWord( site ) )
+			{
+				// If errors occurred, print error
+				intp.printError( Interpreter.ErrorType.WORDUNDEFINED , szName ) ;
+			}
+			return false ;
+		} ;
+	}
+	private Closure compileSyntaxError( final String szToken )
+	{
+		return intp -> {
+			intp.printError( Interpreter.ErrorType.SYNTAX , szToken ) ;
+			return true ;
+		} ;
+	}
+
+	// For testing
+	public static void main( final String[] args )
+	{
+		final Interpreter intp = new Interpreter() ;
+		final String[] tests = {
+				": sq dup * ; 3 sq . "
+				, "10 0 do i . loop "
+				, "1 if 2 else 3 then . 0 if 2 else 3 then . "
+				, "variable x 5 x ! x ? x @ . "
+				, ".\" hello \" 5 undefined 6 . "
+		} ;
+
+		intp.setEngine( Interpreter.Engine.CLOSURE ) ;
+		for ( int i = 0 ; i < tests.length ; i ++ )
+		{
+			System.out.println( tests[i] ) ;
+			intp.execute( tests[i] ) ;
+		}
+	}
+}
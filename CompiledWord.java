@@ -0,0 +1,68 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * A user-defined word compiled to JVM code by the JitCompiler. The code
+ * is in a hidden class extending this class, so it is unloaded once the
+ * Word that holds it is redefined or forgotten.
+ *
+ */
+public abstract class CompiledWord
+{
+	// Number of items the word takes from the stack
+	private int iDepth ;
+	// Largest number of items the word's primitives would push above
+	// the items it takes
+	private int iGrowth ;
+	// Ids of the primitives the word uses
+	private int[] iPrimitives ;
+	// Generation of the Dictionary when the primitives were last checked
+	private int iGeneration = 0 ;
+
+	/** Constructor. Called by the hidden class */
+	protected CompiledWord()
+	{
+		return ;
+	}
+
+	/** Sets what the code needs to run, worked out by the JitCompiler */
+	void setRequirements( final int iDepth , final int iGrowth , final int[] iPrimitives )
+	{
+		this.iDepth = iDepth ;
+		this.iGrowth = iGrowth ;
+		this.iPrimitives = iPrimitives ;
+		return ;
+	}
+
+	/**
+	 * Runs the compiled code. The stack must have at least getDepth() items,
+	 * and room for getGrowth() more
+	 * @param intp is the Interpreter, used to count steps of loops
+	 * @param iStack is the array of items of the parameter stack
+	 * @param iSize is the number of items in the stack
+	 * @return the new number of items, or -1 if stopped before changing the
+	 * stack, because of division by zero
+	 */
+	public abstract int run( Interpreter intp , int[] iStack , int iSize ) ;
+
+	/** @return true if none of the primitives the code uses have been redefined */
+	public boolean checkPrimitives( final Dictionary dict )
+	{
+		// Only check again if the dictionary has changed
+		if ( this.iGeneration != dict.getGeneration() )
+		{
+			for ( int i = 0 ; i < this.iPrimitives.length ; i ++ )
+			{
+				if ( dict.checkPrimitive( this.iPrimitives[i] ) == false )
+				{
+					return false ;
+				}
+			}
+			this.iGeneration = dict.getGeneration() ;
+		}
+		return true ;
+	}
+
+	// Getters
+	public int getDepth() { return this.iDepth ; }
+	public int getGrowth() { return this.iGrowth ; }
+}
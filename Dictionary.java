@@ -5,7 +5,9 @@
  *
  */
 
+import java.util.Arrays;
 import java.util.Hashtable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Dictionary
 {
@@ -13,15 +15,34 @@ public class Dictionary
 	// of Words/Variabes, and to prevent duplicate keys, so that Words and Variables 
 	// cannot be defined twice. 
 	private Hashtable<String , Word> words ;
-	private Hashtable<String , String> variables ;
+	// Slots of the variables, indexed by name
+	private Hashtable<String , Integer> variables ;
+	// The ids of the variable names. Code run with this dictionary is 
+	// parsed with it
+	private final Symbol symbols = new Symbol() ;
+	// Values of the variables, indexed by slot. The slot of a variable is 
+	// the id of its name from symbols, so is known once the code is parsed. 
+	private int[] iCells ;
+	// Whether each slot holds a variable
+	private boolean[] bCells ;
+	// The Words named after primitives, indexed by primitive id, so that 
+	// a primitive can be checked without looking up its name. 
+	// Null if the word is not in the dictionary. 
+	private Word[] primitives ;
 	// The autocompleter. Words are added to the autocompleter when they are defined.
 	private Autocompleter autocompleter ;
+	// Changed whenever a word or variable is added or removed, so that 
+	// CallSites know when to look names up again. Taken from GENERATIONS,
+	// so that no two Dictionaries have the same generation
+	private int iGeneration ;
+	private static final AtomicInteger GENERATIONS = new AtomicInteger() ;
 
 	// Constructor
 	public Dictionary()
 	{
 		this.words = new Hashtable<>() ;
 		this.variables = new Hashtable<>() ;
+		this.primitives = new Word[ Primitive.getCount() ] ;
 		this.autocompleter = new Autocompleter() ; 
 		this.reset() ;
 		return ;
@@ -31,18 +52,38 @@ public class Dictionary
 		// Clear words and variables. 
 		this.getWords().clear() ;
 		this.getVariables().clear() ;
+		Arrays.fill( this.primitives , null ) ;
+		this.symbols.clear() ;
+		this.iCells = new int[ 64 ] ;
+		this.bCells = new boolean[ this.iCells.length ] ;
+		this.changed() ;
 		// Do not create new Autocompleter
 		return ;
 	}
+	/** Gives the dictionary a new generation */
+	private void changed()
+	{
+		this.iGeneration = Dictionary.GENERATIONS.incrementAndGet() ;
+		return ;
+	}
 
 	/** Adds a word with its definition to the dictionary, and adds to autocompleter */
 	public void addWord( final String szName , final String szDefinition )
 	{
+		final Word word ;
+		final int iPrimitive ;
+
 		// Add new word if undefined
 		if ( this.checkWordDefined( szName ) == false )
 		{
-			this.getWords().put( szName.trim().toLowerCase()
-					, new Word( szDefinition.trim() ) ) ;
+			iPrimitive = Primitive.lookup( szName ) ;
+			word = new Word( szDefinition.trim() , iPrimitive , this.symbols ) ;
+			this.getWords().put( szName.trim().toLowerCase() , word ) ;
+			// Keep track of words named after primitives
+			if ( iPrimitive != Primitive.NONE )
+			{
+				this.primitives[ iPrimitive ] = word ;
+			}
 			// Add to autocompleter
 			this.autocompleter.insert( szName ) ;
 		}
@@ -52,6 +93,7 @@ public class Dictionary
 			this.getWords().get( szName.toLowerCase() )
 			.assignDefinition( szDefinition.trim() ) ;
 		}
+		this.changed() ;
 		return ;
 	}
 	/** Reverts a word in the dictionary to a previous definition,
@@ -72,15 +114,53 @@ public class Dictionary
 		if ( word.getHistory().getLength() == 0 )
 		{
 			this.getWords().remove( szName.toLowerCase() ) ;
+			if ( word.getPrimitive() != Primitive.NONE )
+			{
+				this.primitives[ word.getPrimitive() ] = null ;
+			}
 		}
+		this.changed() ;
 		return ;
 	}
 
-	/** Adds a variable to the dictionary, and adds to autocompleter */
-	public void addVariable( final String szKey , final String szValue )
+	/** Adds a variable with the value 0 to the dictionary, and adds to autocompleter
+	 * @return the slot of the variable */
+	public int addVariable( final String szName )
 	{
-		this.getVariables().put( szKey.toLowerCase().trim() , szValue ) ;
-		this.autocompleter.insert( szKey.toLowerCase().trim() ) ;
+		final int iSlot = this.symbols.intern( szName ) ;
+		this.addVariable( iSlot ) ;
+		return iSlot ;
+	}
+	/** Adds a variable with the value 0 to the dictionary, and adds to autocompleter
+	 * @param iSlot is the id of the variable's name from getSymbols */
+	public void addVariable( final int iSlot )
+	{
+		// Make room for names seen since the slots were allocated
+		if ( iSlot >= this.iCells.length )
+		{
+			this.iCells = Arrays.copyOf( this.iCells 
+					, Math.max( iSlot + 1 , this.iCells.length * 2 ) ) ;
+			this.bCells = Arrays.copyOf( this.bCells , this.iCells.length ) ;
+		}
+		// Add name if undefined
+		if ( this.bCells[ iSlot ] == false )
+		{
+			this.bCells[ iSlot ] = true ;
+			this.getVariables().put( this.symbols.getName( iSlot ) , iSlot ) ;
+			this.autocompleter.insert( this.symbols.getName( iSlot ) ) ;
+		}
+		this.iCells[ iSlot ] = 0 ;
+		this.changed() ;
+		return ;
+	}
+	/** Stores a value in a variable, adding the variable if undefined */
+	public void setVariable( final int iSlot , final int iValue )
+	{
+		if ( this.checkVariableDefined( iSlot ) == false )
+		{
+			this.addVariable( iSlot ) ;
+		}
+		this.iCells[ iSlot ] = iValue ;
 		return ;
 	}
 
@@ -99,11 +179,22 @@ public class Dictionary
 	{
 		return this.words ;
 	}
-	/** @return the hash table of variables */
-	public Hashtable<String, String> getVariables()
+	/** @return the hash table of variable slots */
+	public Hashtable<String, Integer> getVariables()
 	{
 		return this.variables ;
 	}
+	/** @return the generation, which changes whenever a word or variable
+	 * is added or removed */
+	public int getGeneration()
+	{
+		return this.iGeneration ;
+	}
+	/** @return the ids of the variable names, to parse code with */
+	public Symbol getSymbols()
+	{
+		return this.symbols ;
+	}
 	/** @return the Autocompleter */
 	public Autocompleter getAutocompleter()
 	{
@@ -114,10 +205,27 @@ public class Dictionary
 	{
 		return this.words.get( szName.toLowerCase() ) ;
 	}
-	/** @return the Variable with name szName */
+	/** @return the value of the Variable with name szName as a String, 
+	 * or null if undefined */
 	public String getVariable( final String szName )
 	{
-		return this.variables.get( szName.toLowerCase() ) ;
+		final Integer slot = this.variables.get( szName.trim().toLowerCase() ) ;
+		String szRet = null ;
+		if ( slot != null )
+		{
+			szRet = "" + this.iCells[ slot ] ;
+		}
+		return szRet ;
+	}
+	/** @return the value of the Variable in slot iSlot */
+	public int getVariable( final int iSlot )
+	{
+		if ( this.checkVariableDefined( iSlot ) == false )
+		{
+			throw new RuntimeException( "Error, variable >>>" 
+					+ this.symbols.getName( iSlot ) + "<<< is undefined. " ) ;
+		}
+		return this.iCells[ iSlot ] ;
 	}
 	/** @return the definition of the Word with name szName */
 	public String getDefinition( final String szName )
@@ -165,6 +273,14 @@ public class Dictionary
 				.equalsIgnoreCase( szDefinition.trim() ) ;
 	}
 
+	/** Checks if a primitive is in the dictionary and still defined as itself,
+	 * without looking up its name */
+	public boolean checkPrimitive( final int iPrimitive )
+	{
+		return this.primitives[ iPrimitive ] != null 
+				&& this.primitives[ iPrimitive ].isPrimitive() ;
+	}
+
 	/** Checks if a variable is defined */
 	public boolean checkVariableDefined( final String szName )
 	{
@@ -182,6 +298,12 @@ public class Dictionary
 		return bRC ;
 	}
 
+	/** Checks if a variable is defined, without looking up its name */
+	public boolean checkVariableDefined( final int iSlot )
+	{
+		return iSlot >= 0 && iSlot < this.bCells.length && this.bCells[ iSlot ] ;
+	}
+
 	// For testing
 	public static void main( String[] args )
 	{
@@ -214,6 +336,11 @@ public class Dictionary
 		System.out.println( "Still defined? "
 				+  dict.checkWordDefined( "Print" ) ) ;
 
+		dict.addVariable( "Date" ) ;
+		dict.setVariable( dict.getSymbols().intern( "date" ) , 1104 ) ;
+		System.out.println( "Variables: " + dict.getVariables().keySet() 
+				+ " - date is: " + dict.getVariable( "DATE" ) ) ;
+
 		dict.getAutocompleter().display();
 
 	}
@@ -0,0 +1,356 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Lexer scanning the source code once. Gives the same tokens as Lexer,
+ * which is kept to test against, but compares characters in place instead
+ * of copying substrings, and finds delimiters with indexOf instead of
+ * building strings a character at a time, so takes time linear in the
+ * length of the source.
+ * Takes the source as written, and replaces whitespace in the same way
+ * as Parser did before calling Lexer. The tokens are put in a TokenBuffer,
+ * recording where each is in the source, and their text is only copied
+ * from the source when it differs.
+ *
+ */
+
+import java.util.Arrays;
+
+public class FastLexer
+{
+	// Source with tabs and newlines replaced by two spaces, and two
+	// spaces added, as Lexer takes it
+	private String szInput ;
+	// The source code as written
+	private String szSource ;
+	// Indexes in szInput of the characters replaced by two spaces, and of
+	// the newlines among them, in order
+	private int[] iReplaced ;
+	private int iReplacedCount ;
+
+	/**
+	 * Splits Forth source code into tokens
+	 * @param szSource is the code, as written
+	 * @return a LinkedList of tokens, ending with an END token
+	 */
+	public LinkedList<Token> tokenise( final String szSource )
+	{
+		return this.lex( szSource ).toList() ;
+	}
+	/**
+	 * Splits Forth source code into tokens
+	 * @param szSource is the code, as written
+	 * @return a TokenBuffer of the tokens, ending with an END token
+	 */
+	public TokenBuffer lex( final String szSource )
+	{
+		final TokenBuffer tokens = new TokenBuffer( szSource ) ;
+		final ForthEvents.Lex event = new ForthEvents.Lex() ;
+		final String s ;
+		final int n ;
+		boolean bSet ;
+		int iEnd ;
+		int iWordEnd ;
+
+		event.begin() ;
+		this.replaceWhitespace( szSource , tokens ) ;
+		s = this.szInput ;
+		n = s.length() ;
+
+		// For each character. Index changes are as made by Lexer
+		for ( int i = 0 ; i < n - 1 ; i ++ )
+		{
+			bSet = false ;
+			// End of the word starting here, empty if at a space
+			iWordEnd = this.find( i , ' ' ) ;
+
+			// If word definition
+			if ( s.startsWith( ": " , i ) )
+			{
+				bSet = true ;
+				this.addToken( tokens , ":" , Token.Type.COLON , i , i + 1 ) ;
+				++ i ;
+				// If not at end, and not a semicolon, add identifier and definition
+				if ( i < n - 2 && s.charAt( i + 1 ) != ';' )
+				{
+					iEnd = this.find( i + 1 , ' ' ) ;
+					this.addToken( tokens , null , Token.Type.WORD_NAME , i + 1 , iEnd ) ;
+					i = iEnd - 1 ;
+					if ( s.charAt( i + 1 ) != ';' )
+					{
+						iEnd = this.find( i + 2 , ';' ) ;
+						this.addToken( tokens , null , Token.Type.DEFINITION , i + 2 , iEnd ) ;
+						i = iEnd - 2 ;
+					}
+				}
+				else
+				{
+					// If no identifier or definition, set to null
+					tokens.add( Token.Type.WORD_NAME , null , -1 , -1 ) ;
+					tokens.add( Token.Type.DEFINITION , null , -1 , -1 ) ;
+				}
+			}
+			else if ( s.startsWith( "; " , i ) )
+			{
+				bSet = true ;
+				this.addToken( tokens , ";" , Token.Type.SEMICOLON , i , i + 1 ) ;
+				++ i ;
+			}
+			// Variable operations. The previous token is the variable name
+			else if ( s.startsWith( "! " , i ) && tokens.getCount() > 0 )
+			{
+				bSet = true ;
+				tokens.setType( tokens.getCount() - 1 , Token.Type.VARIABLE_NAME ) ;
+				this.addToken( tokens , "!" , Token.Type.VARIABLE_STORE , i , i + 1 ) ;
+				++ i ;
+			}
+			else if ( s.startsWith( "@ " , i ) && tokens.getCount() > 0 )
+			{
+				bSet = true ;
+				tokens.setType( tokens.getCount() - 1 , Token.Type.VARIABLE_NAME ) ;
+				this.addToken( tokens , "@" , Token.Type.VARIABLE_GET , i , i + 1 ) ;
+				++ i ;
+			}
+			else if ( s.startsWith( "? " , i ) && tokens.getCount() > 0 )
+			{
+				bSet = true ;
+				tokens.setType( tokens.getCount() - 1 , Token.Type.VARIABLE_NAME ) ;
+				this.addToken( tokens , "?" , Token.Type.VARIABLE_PRINT , i , i + 1 ) ;
+				++ i ;
+			}
+			// If number
+			else if ( this.checkNumber( i , iWordEnd ) )
+			{
+				bSet = true ;
+				i = this.addToken( tokens , null , Token.Type.LITERAL , i , iWordEnd ) ;
+			}
+			// If comment. Skips the character after the end
+			else if ( s.startsWith( "( " , i ) )
+			{
+				bSet = true ;
+				iEnd = this.find( i + 2 , ')' ) ;
+				this.addToken( tokens , "(" , Token.Type.COMMENT_START , i , i + 1 ) ;
+				this.addToken( tokens , null , Token.Type.COMMENT_CONTENT , i + 2 , iEnd ) ;
+				this.addToken( tokens , ")" , Token.Type.COMMENT_END , iEnd , iEnd + 1 ) ;
+				i = iEnd + 1 ;
+			}
+			// Words of 2 or more characters
+			else if ( i < n - 2 )
+			{
+				// If print string. Skips the character after the end
+				if ( s.startsWith( ".\" " , i ) )
+				{
+					bSet = true ;
+					iEnd = this.find( i + 3 , '"' ) ;
+					this.addToken( tokens , ".\"" , Token.Type.PRINT_START , i , i + 2 ) ;
+					this.addToken( tokens , null , Token.Type.PRINT_CONTENT , i + 3 , iEnd ) ;
+					this.addToken( tokens , "\"" , Token.Type.PRINT_END , iEnd , iEnd + 1 ) ;
+					i = iEnd + 1 ;
+				}
+				else if ( s.regionMatches( true , i , "if " , 0 , 3 ) )
+				{
+					bSet = true ;
+					i = this.addToken( tokens , "if" , Token.Type.IF , i , i + 2 ) ;
+				}
+				else if ( s.regionMatches( true , i , "do " , 0 , 3 ) )
+				{
+					bSet = true ;
+					i = this.addToken( tokens , "do" , Token.Type.DO , i , i + 2 ) ;
+				}
+				else if ( i >= n - 4 )
+				{
+					// Too near the end for longer words
+				}
+				else if ( s.regionMatches( true , i , "else " , 0 , 5 ) )
+				{
+					bSet = true ;
+					i = this.addToken( tokens , "else" , Token.Type.ELSE , i , i + 4 ) ;
+				}
+				else if ( s.regionMatches( true , i , "then " , 0 , 5 ) )
+				{
+					bSet = true ;
+					i = this.addToken( tokens , "then" , Token.Type.THEN , i , i + 4 ) ;
+				}
+				else if ( s.regionMatches( true , i , "loop " , 0 , 5 ) )
+				{
+					bSet = true ;
+					i = this.addToken( tokens , "loop" , Token.Type.LOOP , i , i + 4 ) ;
+				}
+				else if ( i >= n - 5 )
+				{
+					// Too near the end for longer words
+				}
+				else if ( s.regionMatches( true , i , "+loop " , 0 , 6 ) )
+				{
+					bSet = true ;
+					i = this.addToken( tokens , "+loop" , Token.Type.LOOP , i , i + 5 ) ;
+				}
+				else if ( s.regionMatches( true , i , "break " , 0 , 6 ) )
+				{
+					bSet = true ;
+					i = this.addToken( tokens , "break" , Token.Type.BREAK , i , i + 5 ) ;
+				}
+				else if ( i >= n - 6 )
+				{
+					// Too near the end for longer words
+				}
+				else if ( s.regionMatches( true , i , "forget " , 0 , 7 ) )
+				{
+					bSet = true ;
+					iEnd = this.find( i + 7 , ' ' ) ;
+					this.addToken( tokens , "forget" , Token.Type.FORGET , i , i + 6 ) ;
+					this.addToken( tokens , null , Token.Type.WORD_NAME , i + 7 , iEnd ) ;
+					i = iEnd - 1 ;
+				}
+				else if ( i < n - 8 && s.regionMatches( true , i , "variable " , 0 , 9 ) )
+				{
+					bSet = true ;
+					iEnd = this.find( i + 9 , ' ' ) ;
+					this.addToken( tokens , "variable" , Token.Type.VARIABLE , i , i + 8 ) ;
+					this.addToken( tokens , null , Token.Type.VARIABLE_NAME , i + 9 , iEnd ) ;
+					i = iEnd - 1 ;
+				}
+			}
+			// Otherwise a word, up to the next space
+			if ( Character.isWhitespace( s.charAt( i ) ) == false && bSet == false )
+			{
+				i = this.addToken( tokens , null , Token.Type.WORD , i , iWordEnd ) ;
+			}
+		}
+		tokens.add( Token.Type.END , null , -1 , -1 ) ;
+
+		if ( event.shouldCommit() )
+		{
+			event.inputLength = szSource.length() ;
+			event.tokenCount = tokens.getCount() ;
+			event.commit() ;
+		}
+		return tokens ;
+	}
+
+	/** Makes the input Lexer would be given, and records where
+	 * characters were replaced, and the newlines in the source */
+	private void replaceWhitespace( final String szSource , final TokenBuffer tokens )
+	{
+		final StringBuilder sb = new StringBuilder( szSource.length() + 16 ) ;
+		char ch ;
+
+		this.szSource = szSource ;
+		this.iReplaced = new int[ 16 ] ;
+		this.iReplacedCount = 0 ;
+		for ( int i = 0 ; i < szSource.length() ; i ++ )
+		{
+			ch = szSource.charAt( i ) ;
+			if ( ch == '\t' || ch == '\n' || ch == '\r' )
+			{
+				if ( ch == '\n' )
+				{
+					tokens.addNewline( i ) ;
+				}
+				this.iReplaced = this.addIndex( this.iReplaced , this.iReplacedCount ++ , sb.length() ) ;
+				sb.append( "  " ) ;
+			}
+			else
+			{
+				sb.append( ch ) ;
+			}
+		}
+		// Add trailing space, as all words must be followed by whitespace
+		sb.append( "  " ) ;
+		this.szInput = sb.toString() ;
+		return ;
+	}
+	private int[] addIndex( final int[] iIndexes , final int iCount , final int iIndex )
+	{
+		final int[] iRet = iCount < iIndexes.length ? iIndexes
+				: Arrays.copyOf( iIndexes , iCount * 2 ) ;
+		iRet[ iCount ] = iIndex ;
+		return iRet ;
+	}
+	/** @return the number of indexes lower than iIndex */
+	private static int countBelow( final int[] iIndexes , final int iCount , final int iIndex )
+	{
+		final int iFound = Arrays.binarySearch( iIndexes , 0 , iCount , iIndex ) ;
+		return iFound >= 0 ? iFound : - iFound - 1 ;
+	}
+	/** @return the index in the source of an index in the input. A
+	 * replaced character's two spaces are both at its index */
+	private int getSourceIndex( final int iIndex )
+	{
+		return iIndex - FastLexer.countBelow( this.iReplaced , this.iReplacedCount , iIndex ) ;
+	}
+
+	/**
+	 * Adds a token for the input from iStart to iEnd
+	 * @param szString is the text of the token, or null for the input
+	 * @return iEnd, as the index of the character after the token
+	 */
+	private int addToken( final TokenBuffer tokens , final String szString
+			, final Token.Type type , final int iStart , final int iEnd )
+	{
+		// The spaces added at the end are not in the source
+		final int iSourceStart = Math.min( this.getSourceIndex( iStart ) , this.szSource.length() ) ;
+		final int iSourceEnd = Math.min( this.getSourceIndex( iEnd ) , this.szSource.length() ) ;
+		String szText = szString ;
+
+		// Text with replaced or added characters differs from the source, so is copied now
+		if ( szText == null && ( iSourceEnd - iSourceStart != iEnd - iStart 
+				|| FastLexer.countBelow( this.iReplaced , this.iReplacedCount , iEnd )
+				> FastLexer.countBelow( this.iReplaced , this.iReplacedCount , iStart - 1 ) ) )
+		{
+			szText = this.szInput.substring( iStart , iEnd ) ;
+		}
+		tokens.add( type , szText , iSourceStart , iSourceEnd - iSourceStart ) ;
+		return iEnd ;
+	}
+	/**
+	 * Finds a delimiter, as Lexer.getBetweenDelimiters
+	 * @return the index of the first cDelimiter from iStart
+	 */
+	private int find( final int iStart , final char cDelimiter )
+	{
+		final int iRet = this.szInput.indexOf( cDelimiter , iStart ) ;
+
+		if ( iRet < 0 || iStart >= this.szInput.length() )
+		{
+			throw new RuntimeException( "Error, missing >>>" + cDelimiter + "<<<" ) ;
+		}
+		return iRet ;
+	}
+	/** @return true if the input from iStart to iEnd is an integer,
+	 * matching ^-?[0-9]+$ */
+	private boolean checkNumber( final int iStart , final int iEnd )
+	{
+		int i = iStart ;
+
+		if ( i < iEnd && this.szInput.charAt( i ) == '-' )
+		{
+			++ i ;
+		}
+		if ( i == iEnd )
+		{
+			return false ;
+		}
+		for ( ; i < iEnd ; i ++ )
+		{
+			if ( this.szInput.charAt( i ) < '0' || this.szInput.charAt( i ) > '9' )
+			{
+				return false ;
+			}
+		}
+		return true ;
+	}
+
+	public static void main( final String[] args )
+	{
+		final String szCode = ": square dup * ;\n( n -- )\tvariable v\r\n5 v ! .\" a\tb\" 7 square . " ;
+		final Object[] tokens = new FastLexer().tokenise( szCode ).toArray() ;
+		Token token ;
+
+		for ( int i = 0 ; i < tokens.length ; i ++ )
+		{
+			token = ( Token ) tokens[i] ;
+			System.out.println( token.getString() + " :: " + token.getType()
+					+ " :: " + token.getLine() + ":" + token.getColumn() ) ;
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Java Flight Recorder events for lexing, parsing, compiling and executing
+ * Forth code, so that recordings show what the interpreter was doing
+ * alongside GC and CPU events. An event costs little unless a recording
+ * has enabled it, so its fields are only worked out when it is to be
+ * committed.
+ *
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+public final class ForthEvents
+{
+	/** Lexer.tokenise */
+	@Name( "forth.Lex" )
+	@Label( "Lex" )
+	@Category( "Forth" )
+	@Description( "Forth source split into tokens" )
+	public static final class Lex extends Event
+	{
+		@Label( "Input Length" )
+		int inputLength ;
+		@Label( "Tokens" )
+		int tokenCount ;
+	}
+
+	/** Parser.parse */
+	@Name( "forth.Parse" )
+	@Label( "Parse" )
+	@Category( "Forth" )
+	@Description( "Tokens parsed into an AST" )
+	public static final class Parse extends Event
+	{
+		@Label( "Tokens" )
+		int tokenCount ;
+		@Label( "Nodes" )
+		int nodeCount ;
+	}
+
+	/** Compiling a user-defined word for an engine */
+	@Name( "forth.Compile" )
+	@Label( "Compile" )
+	@Category( "Forth" )
+	@Description( "Definition of a user-defined word compiled" )
+	public static final class Compile extends Event
+	{
+		@Label( "Target" )
+		@Description( "bytecode, closure or jvm" )
+		String target ;
+		@Label( "Definition" )
+		String definition ;
+		@Label( "Compiled" )
+		@Description( "False if the definition could not be compiled" )
+		boolean compiled ;
+	}
+
+	/** Interpreter.execute */
+	@Name( "forth.Execute" )
+	@Label( "Execute" )
+	@Category( "Forth" )
+	@Description( "Forth code executed" )
+	public static final class Execute extends Event
+	{
+		@Label( "Engine" )
+		String engine ;
+		@Label( "Code Length" )
+		int codeLength ;
+		@Label( "Errors" )
+		boolean errors ;
+		@Label( "Steps" )
+		@Description( "Loop iterations and calls of user-defined words" )
+		long steps ;
+	}
+
+	/** Not to be instantiated */
+	private ForthEvents() {}
+}
@@ -0,0 +1,183 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * A list kept in an array, with the same methods as LinkedList, for
+ * places that look items up by index, such as the Parser building the
+ * children of AST Expressions. Getting any item is constant
+ * time, and adding to or popping from the end is constant time on
+ * average, as the array doubles in size when full.
+ *
+ */
+
+import java.util.Arrays ;
+import java.util.Iterator ;
+import java.util.NoSuchElementException ;
+
+public class IndexedList <T> implements Iterable<T> // T is the Object type of each item
+{
+	/** The items, from index 0 to iLength - 1 */
+	private Object[] items ;
+	/** The length of the list */
+	private int iLength ;
+
+	/** Constructor */
+	public IndexedList()
+	{
+		this.reset() ;
+		return ;
+	}
+	/** Constructor adding an indefinite number of items */
+	@SafeVarargs
+	public IndexedList( final T... content )
+	{
+		this() ;
+		this.add( content ) ;
+		return ;
+	}
+	/** Set class members to defaults */
+	public void reset()
+	{
+		this.items = new Object[ 8 ] ;
+		this.iLength = 0 ;
+		return ;
+	}
+
+	/** Returns the last added item of the list, without removing */
+	@SuppressWarnings( "unchecked" )
+	public T peek()
+	{
+		if ( this.iLength == 0 )
+		{
+			throw new NullPointerException( "IndexedList is empty" ) ;
+		}
+		return ( T ) this.items[ this.iLength - 1 ] ;
+	}
+	/** Returns the item at index i */
+	@SuppressWarnings( "unchecked" )
+	public T peek( final int i )
+	{
+		if ( i < 0 || i >= this.iLength )
+		{
+			throw new IndexOutOfBoundsException( "Index " + i + ", length " + this.iLength ) ;
+		}
+		return ( T ) this.items[i] ;
+	}
+	/** Replaces the item at index i */
+	public void set( final int i , final T content )
+	{
+		if ( i < 0 || i >= this.iLength )
+		{
+			throw new IndexOutOfBoundsException( "Index " + i + ", length " + this.iLength ) ;
+		}
+		this.items[i] = content ;
+		return ;
+	}
+
+	/** Adds objects to the list */
+	@SafeVarargs
+	public final void add( final T... content )
+	{
+		this.ensureCapacity( this.iLength + content.length ) ;
+		for ( final T item : content )
+		{
+			this.items[ this.iLength ++ ] = item ;
+		}
+		return ;
+	}
+	/** Appends the items of a list */
+	public void append( final Iterable<T> content )
+	{
+		if ( content != null )
+		{
+			for ( final T item : content )
+			{
+				this.push( item ) ;
+			}
+		}
+		return ;
+	}
+	/** Adds an object to the list */
+	public void push( final T content )
+	{
+		this.ensureCapacity( this.iLength + 1 ) ;
+		this.items[ this.iLength ++ ] = content ;
+		return ;
+	}
+	/** Removes and returns the last added item from the list */
+	public T pop()
+	{
+		final T ret = this.peek() ;
+
+		// Not kept from being garbage collected
+		this.items[ -- this.iLength ] = null ;
+		return ret ;
+	}
+	/** Doubles the size of the array until it holds iCapacity items */
+	private void ensureCapacity( final int iCapacity )
+	{
+		int iNew = this.items.length ;
+
+		while ( iNew < iCapacity )
+		{
+			iNew = iNew * 2 ;
+		}
+		if ( iNew != this.items.length )
+		{
+			this.items = Arrays.copyOf( this.items , iNew ) ;
+		}
+		return ;
+	}
+
+	/** Converts to an array
+	 * @return a T[] */
+	public Object[] toArray()
+	{
+		return Arrays.copyOf( this.items , this.iLength ) ;
+	}
+	public String[] toStringArray()
+	{
+		return Arrays.copyOf( this.items , this.iLength , String[].class ) ;
+	}
+	/** @return an Iterator over the items, from index 0 */
+	@Override
+	public Iterator<T> iterator()
+	{
+		return new Iterator<T>()
+		{
+			private int i = 0 ;
+
+			@Override
+			public boolean hasNext() { return this.i < IndexedList.this.iLength ; }
+			@Override
+			public T next()
+			{
+				if ( this.i >= IndexedList.this.iLength )
+				{
+					throw new NoSuchElementException() ;
+				}
+				return IndexedList.this.peek( this.i ++ ) ;
+			}
+		} ;
+	}
+
+	/** @return the number of items in the list */
+	public int getLength() { return this.iLength ; }
+
+	/** For testing purposes */
+	public static void main( final String[] args )
+	{
+		final IndexedList<String> list = new IndexedList<String>( "a" , "b" ) ;
+
+		for ( int i = 0 ; i < 20 ; i ++ )
+		{
+			list.push( "x" + i ) ;
+		}
+		System.out.println( list.getLength() + " " + list.peek( 0 ) + " " + list.peek( 13 ) + " " + list.peek() ) ;
+		System.out.println( list.pop() + " " + list.pop() + " " + list.getLength() ) ;
+		for ( final String sz : list )
+		{
+			System.out.print( sz + " " ) ;
+		}
+		System.out.println() ;
+	}
+}
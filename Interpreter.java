@@ -12,7 +12,7 @@ import java.util.Enumeration;
 public class Interpreter
 {
 	// Defines types of errors that can be thrown by the Interpreter
-	private enum ErrorType 
+	enum ErrorType 
 	{
 		WORDUNDEFINED
 		, SYNTAX
@@ -20,15 +20,76 @@ public class Interpreter
 		, UNEXPECTED
 		;
 	}
+	// Defines the engines that can be used to execute code
+	public enum Engine
+	{
+		TREE // Walks the AST from the Parser
+		, BYTECODE // Compiles the AST to Bytecode, then executes the Bytecode
+		, CLOSURE // Compiles the AST to Closures, then runs the Closures
+		;
+		// User-defined words are executed as Bytecode by every engine
+	}
 	private Dictionary dict ; // The dictionary
 	private ParamStack pStack ; // The parameter stack 
 	private ParamStack rStack ; // The return stack
+	private int iStackLimit = ParamStack.DEFAULT_MAX_SIZE ; // Max size of both
+	private LoopStack lStack ; // The loop control stack
+	private CallStack cStack ; // The call stack of user-defined words
 	private FConsole console ; // The console to take input from
+	private Engine engine = Engine.TREE ; // The engine used to execute code
+	// Whether the bytecode engine uses superinstructions. 
+	// Can be turned off when debugging
+	private boolean bOptimise = true ;
+	// Number of times each superinstruction was executed, indexed by opcode
+	private long[] lFused = new long[ Bytecode.getCount() ] ;
+	// Whether hot words are compiled to JVM code, and the number of 
+	// calls of a word before it is compiled
+	private boolean bJit = false ;
+	private int iJitThreshold = JitCompiler.DEFAULT_THRESHOLD ;
+	// Whether the bytecode engine keeps the top of the parameter stack
+	// in a local variable
+	private boolean bCacheTop = false ;
+	// Whether words with a verified stack effect are executed without 
+	// checking the stack at each step
+	private boolean bUnchecked = false ;
+	// Words holding the Forth definitions of predefined words, indexed by 
+	// primitive id. Created when first needed
+	private Word[] sources = new Word[ Primitive.getCount() ] ;
+	// Counts and times user-defined words, null if not profiling
+	private Profiler profiler = null ;
+	// Samples the words being executed from another thread, null if not sampling
+	private SamplingProfiler sampler = null ;
+	// Code already parsed and compiled, so that it is not parsed again
+	private final ProgramCache programs = new ProgramCache( ProgramCache.DEFAULT_CAPACITY ) ;
 
-	// Constant to store the maximum number of loops
+	// Default number of steps each execution may take, where a step is
+	// a loop iteration or a call of a user-defined word, 0 if no limit. 
 	// Not in design as infinite loop-related crashes 
-	// were found only when testing during development
-	private static final int MAX_LOOP = ( int ) Math.pow( 2 , 9 ) ; 
+	// were found only when testing during development. 
+	// Replaces a limit of 512 iterations per loop, which stopped long 
+	// loops but not runaway recursion. No limit by default, as valid 
+	// programs may take any number of steps. Set with setFuel. The 
+	// budget word can only lower it, for the current execution
+	public static final long DEFAULT_FUEL = 0 ;
+	private long lFuel = Interpreter.DEFAULT_FUEL ; // Steps allowed per execution
+	private long lTimeLimit = 0 ; // Milliseconds allowed per execution, 0 if no limit
+	private long lFuelStart ; // Steps allowed in the current execution
+	private long lFuelLeft ; // Steps left in the current execution
+	private long lStartTime ; // Value of System.nanoTime() when execution started
+	private long lDeadline ; // Value of System.nanoTime() when time runs out
+	private long lTimeUsed ; // Nanoseconds taken by the last execution
+
+	/** Thrown when an execution runs out of steps, time, call stack or stack. Not caught 
+	 * by calling words, so that the whole execution is stopped */
+	@SuppressWarnings("serial")
+	public static final class BudgetExceededException extends RuntimeException
+	{
+		public BudgetExceededException( final String szMessage )
+		{
+			super( szMessage ) ;
+			return ;
+		}
+	}
 
 	/** Constructor */
 	public Interpreter()
@@ -42,10 +103,21 @@ public class Interpreter
 		// New dictionary
 		this.setDictionary( new Dictionary() ) ;
 		// Create stacks with default sizes
-		this.setPStack( new ParamStack() ) ;
-		this.setRStack( new ParamStack() ) ;
+		this.setPStack( new ParamStack( this.iStackLimit ) ) ;
+		this.setRStack( new ParamStack( this.iStackLimit ) ) ;
+		this.setLStack( new LoopStack() ) ;
+		this.setCStack( new CallStack() ) ;
 		// Add predefined and built-in words to dictionary
 		this.initWords() ;
+		// Reset execution budget
+		this.refuel() ;
+		this.lFused = new long[ Bytecode.getCount() ] ;
+		this.sources = new Word[ Primitive.getCount() ] ;
+		this.programs.clear() ;
+		if ( this.profiler != null )
+		{
+			this.profiler.reset() ;
+		}
 		return ;
 	}
 
@@ -56,8 +128,26 @@ public class Interpreter
 	 */
 	public boolean execute( final String szCode )
 	{
-		// Execute 
+		final ForthEvents.Execute event = new ForthEvents.Execute() ;
+
+		// Reset execution budget, then execute
+		event.begin() ;
+		this.refuel() ;
 		final boolean bRC = this.executeLine( szCode ) ;
+		this.lTimeUsed = System.nanoTime() - this.lStartTime ;
+		if ( event.shouldCommit() )
+		{
+			event.engine = this.getEngine().name() ;
+			event.codeLength = szCode.length() ;
+			event.errors = bRC ;
+			event.steps = this.getFuelUsed() ;
+			event.commit() ;
+		}
+		if ( this.profiler != null )
+		{
+			// End any words the execution stopped
+			this.profiler.exitTo( this.getCStack().getSize() ) ;
+		}
 		if ( bRC == false ) 
 		{
 			// If no errors, print ok
@@ -78,318 +168,1565 @@ public class Interpreter
 	 */
 	public boolean executeLine( final String szCode )
 	{
-		boolean bRC ;
-		final Parser parser = new Parser() ; 
-		final Lexer lexer = new Lexer() ; 
+		boolean bRC ;
+		final int iLoops = this.getLStack().getSize() ;
+
+		// Execute the parsed lexed code, parsed only if not in the cache
+		try
+		{
+			bRC = this.executeProgram( this.programs.get( szCode 
+					, this.getDictionary().getSymbols() ) ) ;
+			this.checkOverflow() ;
+		}
+		catch ( final RuntimeException e )
+		{
+			// If error occurs, print error message
+			System.err.println( e.getMessage() ) ;
+			// End any loops the error stopped
+			this.getLStack().setSize( iLoops ) ;
+			bRC = true ;
+		}
+		return bRC ;
+	}
+
+	/**
+	 * Executes the compiled definition of a user-defined word.
+	 * The definition is only lexed and parsed the first time
+	 * it is called, after which the Bytecode stored by the Word is reused.
+	 * Whatever the engine, the word is executed as Bytecode, so that the 
+	 * words it calls use the CallStack instead of the Java stack, and can
+	 * nest as deep as the CallStack allows
+	 * @param word is the Word to execute
+	 * @param szName is the name the word was called by
+	 * @return false if no errors, true otherwise
+	 */
+	private boolean executeWord( final Word word , final String szName )
+	{
+		boolean bRC ;
+		final int iLoops = this.getLStack().getSize() ;
+
+		// Calling a word is a step
+		this.useFuel() ;
+		this.pushCall( null , 0 , false , szName ) ;
+		if ( this.profiler != null )
+		{
+			this.profiler.enter( szName , this.getCStack().getSize() ) ;
+		}
+
+		// Errors are handled in the same way as executeLine, so that
+		// an error in a word does not stop the calling code
+		try
+		{
+			bRC = this.executeBytecode( word.getBytecode( this.bOptimise ) ) ;
+		}
+		catch ( final BudgetExceededException e )
+		{
+			// Stop the whole execution
+			this.getLStack().setSize( iLoops ) ;
+			throw e ;
+		}
+		catch ( final RuntimeException e )
+		{
+			// If error occurs, print error message
+			System.err.println( e.getMessage() ) ;
+			// End any loops the error stopped
+			this.getLStack().setSize( iLoops ) ;
+			bRC = true ;
+		}
+		finally
+		{
+			this.getCStack().pop() ;
+			if ( this.profiler != null )
+			{
+				this.profiler.exitTo( this.getCStack().getSize() ) ;
+			}
+		}
+		return bRC ;
+	}
+	/** Starts a call of a user-defined word, or stops the execution if 
+	 * the call stack is full */
+	private void pushCall( final Bytecode caller , final int iReturn 
+			, final boolean bError , final String szName )
+	{
+		if ( this.getCStack().push( caller , iReturn , bError , szName 
+				, this.getLStack().getSize() ) == false )
+		{
+			throw new BudgetExceededException( "Error, return stack overflow, words nested more than " 
+					+ this.getCStack().getMaxSize() + " deep" ) ;
+		}
+		return ;
+	}
+
+	/**
+	 * Executes code from the ProgramCache, using its compiled form
+	 * for the engine
+	 * @param program
+	 * @return false if no errors, true otherwise
+	 */
+	private boolean executeProgram( final ProgramCache.Program program )
+	{
+		boolean bRC = false ;
+
+		if ( this.getEngine() == Engine.BYTECODE )
+		{
+			bRC = this.executeBytecode( program.getBytecode( this.bOptimise ) ) ;
+		}
+		else if ( this.getEngine() == Engine.CLOSURE )
+		{
+			bRC = program.getClosure().run( this ) ;
+		}
+		else
+		{
+			bRC = this.executeExpression( program.getAST().getRoot() ) ;
+		}
+		return bRC ;
+	}
+
+	/**
+	 * Executes an abstract syntax tree from the Parser
+	 * @param ast
+	 * @return false if no errors, true otherwise
+	 */
+	public boolean executeAST( final AST ast )
+	{
+		boolean bRC = false ;
+
+		// ast.display( ast.getRoot() , 0 ) ; 
+		// Execute the AST
+		if ( this.getEngine() == Engine.BYTECODE )
+		{
+			bRC = this.executeBytecode( 
+					new BytecodeCompiler( this.bOptimise ).compile( ast ) ) ;
+		}
+		else if ( this.getEngine() == Engine.CLOSURE )
+		{
+			bRC = new ClosureCompiler().compile( ast ).run( this ) ;
+		}
+		else
+		{
+			bRC = this.executeExpression( ast.getRoot() ) ;
+		}
+
+		return bRC ; 
+	}
+
+	/**
+	 * Executes an AST.Expression 
+	 * @param expr is the Expression
+	 * @param state is used to store the state
+	 * @param szBuffer is used to transfer data between steps
+	 * @return
+	 */
+	public boolean executeExpression( final AST.Expression expr )
+	{
+		int i ;
+
+		boolean bRC = false ; 
+
+		// If not leaf node
+		if ( expr.isLeaf() == false )
+		{
+			// For each child
+			for ( i = 0 ; i < expr.getChildCount() ; i ++ )
+			{
+				// If not leaf
+				if ( ( expr.getChild( i ).getContent() == null ) == false )
+				{
+					// Execute expression
+					switch ( expr.getChild( i ).getContent().getType() )
+					{
+					case BREAK :
+						// Call method handling breakpoints
+						// In Interpreter, this does nothing
+						this.breakpoint() ; 
+						break ;
+					case COLON : // Advances i by 3
+						// Add definition
+						this.getDictionary().addWord( 
+								// Add name
+								expr.getChild( ++ i )
+								.getContent().getString()
+								// Add definition
+								, expr.getChild( ++ i )
+								.getContent().getString() ) ;
+						++ i ; // Skip semicolon
+						break ; 
+					case FORGET : // Advances i by 2
+						// Revert or remove word
+						this.getDictionary().undefineWord( 
+								expr.getChild( ++ i )
+								.getContent().getString() ) ;
+						break ;
+					case PRINT_START : // Advances i by 2 
+						// Print 
+						System.out.print( expr.getChild( ++ i )
+								.getContent().getString() ) ;
+						++ i ;
+						break ; 
+					case VARIABLE : // If word is 'variable'. Advances i by 1
+						// Define next name 
+						this.getDictionary().addVariable( 
+								expr.getChild( ++ i )
+								.getContent().getSymbol() ) ;
+						break ;
+					case VARIABLE_NAME : 
+						// Check next child
+						switch ( expr.getChild( i + 1 )
+								.getContent().getType() )
+						{
+						// Name should be current token, operation next token
+						// Add current token as variable name
+						case VARIABLE_STORE : 
+							// Pop stack into variable
+							this.getDictionary().setVariable( 
+									expr.getChild( i )
+									.getContent().getSymbol() 
+									, this.getPStack().pop() ) ;
+							break ; 
+						case VARIABLE_GET : 
+							// Push variable value to stack
+							this.getPStack().push( 
+									this.getDictionary().getVariable( 
+											expr.getChild( i )
+											.getContent().getSymbol() ) ) ; 
+							break ; 
+						case VARIABLE_PRINT :
+							// Print variable value
+							System.out.print( 
+									this.getDictionary().getVariable( 
+											expr.getChild( i )
+											.getContent().getSymbol() ) ) ;
+							break ; 
+						default : 
+							// Undefined variable operation (word), print error
+							this.printError( ErrorType.WORDUNDEFINED 
+									, expr.getChild( i )
+									.getContent().getString() ) ;
+							break ; 
+						}
+						++ i ; 
+						break ; 
+					case DO :
+						// Execute DO LOOP
+						i = i + this.execDoLoop( this.getPStack().pop() 
+								, this.getPStack().pop() , expr, ++ i , i ) ;				
+						break ; 
+					case IF : 
+						// Execute IF Statement
+						i = i + this.execIfStatement( expr , ++ i ) ; 
+						break ; 
+					case LITERAL : 
+						// Push current token content to stack, 
+						// parsed by the Parser if possible
+						if ( expr.getChild( i ).getContent().hasValue() )
+						{
+							this.getPStack().push( 
+									expr.getChild( i ).getContent().getValue() ) ;
+						}
+						else
+						{
+							this.getPStack().push( 
+									Integer.parseInt( expr.getChild( i )
+											.getContent().getString() ) ) ;
+						}
+						break ;
+					case WORD : 
+						// If a primitive that has not been redefined, execute
+						// without looking up the word
+						if ( expr.getChild( i ).getContent().getPrimitive() 
+								!= Primitive.NONE 
+								&& this.getDictionary().checkPrimitive( 
+										expr.getChild( i )
+										.getContent().getPrimitive() ) )
+						{
+							this.execPrimitive( expr.getChild( i )
+									.getContent().getPrimitive() ) ;
+						}
+						// Execute word
+						else if ( this.execWord( expr.getChild( i )
+								.getContent().getCallSite() ) )
+						{
+							// If errors occurred, print error
+							this.printError( ErrorType.WORDUNDEFINED 
+									, expr.getChild( i )
+									.getContent().getString() ) ;
+						}
+						break ;
+					case END : 
+					case COMMENT_START :
+					case COMMENT_CONTENT :
+					case COMMENT_END :
+						// Ignore these tokens
+						break ; 
+
+					default :
+						// If errors occurred, print error
+						this.printError( ErrorType.SYNTAX 
+								, expr.getChild( i )
+								.getContent().getString() ) ;
+						bRC = true ;
+						break ;
+					}
+				}
+				else
+				{
+					// Execute child
+					bRC = bRC || this.executeExpression( expr.getChild( i ) ) ;
+				}
+			}
+		}
+		else
+		{
+			// If attempting to execute leaf node 
+			// (should never happen, but here just in case)
+			this.printError( ErrorType.UNEXPECTED 
+					, "[INTERNAL ERROR]" ) ;
+			bRC = true ; 
+		}
+
+		return bRC ; 
+	}
+	/**
+	 * Executes Bytecode from the BytecodeCompiler. Produces the same 
+	 * results as executeExpression, but without walking a tree.
+	 * User-defined words are called using the CallStack instead of 
+	 * recursing, and a call just before returning replaces the calling word
+	 * @param bytecode
+	 * @return false if no errors, true otherwise
+	 */
+	public boolean executeBytecode( final Bytecode bytecode )
+	{
+		final int iBase = this.getCStack().getSize() ; // Calls made before this code
+		Bytecode code = bytecode ; // Code being executed
+		int[] iCode = code.getCode() ;
+		String[] szConstants = code.getConstants() ;
+		int iPC = 0 ; // Index of the next instruction
+		boolean bRunning = true ;
+		boolean bRC = false ; // Errors in the code being executed
+		boolean bCalledRC ; // Errors in a word being returned from
+		int iNext ; // Index of the instruction after a superinstruction
+		CallSite site = null ; // Word called by name
+		Word word ; // Word to call
+		// Top of the parameter stack, when cached. While cached, the other 
+		// items are in iItems, and iSize replaces the size of the stack
+		boolean bTop = false ;
+		int iTop = 0 ;
+		int[] iItems = null ;
+		int iSize = 0 ;
+		int iMax = 0 ;
+		boolean bCached ; // Whether an instruction was executed with the cache
+
+		// Restarts after errors in words
+		while ( bRunning )
+		{
+			try 
+			{
+				while ( bRunning )
+				{
+					word = null ;
+					// Instructions using the top of the stack run without 
+					// calling ParamStack. Before any other instruction the top 
+					// is put back, so that the stack is complete
+					if ( this.bCacheTop )
+					{
+						switch ( iCode[ iPC ] )
+						{
+						case Bytecode.LITERAL :
+						case Bytecode.LITERAL_OP :
+							// The primitive of LITERAL_OP is executed next
+							if ( bTop && iSize + 1 < iMax - 1 )
+							{
+								iItems[ iSize ++ ] = iTop ;
+								iTop = iCode[ iPC + 1 ] ;
+								iPC = iPC + 2 ;
+								continue ;
+							}
+							else if ( bTop == false && this.getPStack().getFull() == false )
+							{
+								iItems = this.getPStack().getItems() ;
+								iSize = this.getPStack().getSize() ;
+								// Only room in the array, which grows when the top is put back
+								iMax = Math.min( this.getPStack().getMaxSize() , iItems.length ) ;
+								iTop = iCode[ iPC + 1 ] ;
+								bTop = true ;
+								iPC = iPC + 2 ;
+								continue ;
+							}
+							break ;
+						case Bytecode.CONSTANT_FOLD : // id n LITERAL n1 LITERAL n2 PRIMITIVE id site
+							// Needs room for both literals, as execFused
+							if ( bTop && iMax - 1 - ( iSize + 1 ) >= 2 
+									&& this.getDictionary().checkPrimitive( iCode[ iPC + 1 ] ) )
+							{
+								iItems[ iSize ++ ] = iTop ;
+								iTop = iCode[ iPC + 2 ] ;
+								iPC = iPC + 10 ;
+								continue ;
+							}
+							break ;
+						case Bytecode.PRIMITIVE :
+						case Bytecode.OVER_OVER :
+						case Bytecode.DUP_MULTIPLY :
+						case Bytecode.SWAP_DROP :
+						case Bytecode.DROP_DROP :
+						case Bytecode.COMPARE_BRANCH :
+							// The second instruction of a superinstruction is executed next
+							if ( bTop == false 
+									|| this.getDictionary().checkPrimitive( iCode[ iPC + 1 ] ) == false )
+							{
+								break ;
+							}
+							bCached = iSize > 0 ;
+							switch ( iCode[ iPC + 1 ] )
+							{
+							case Primitive.ADD :
+								iTop = bCached ? iItems[ -- iSize ] + iTop : iTop ;
+								break ;
+							case Primitive.SUBTRACT :
+								iTop = bCached ? iItems[ -- iSize ] - iTop : iTop ;
+								break ;
+							case Primitive.MULTIPLY :
+								iTop = bCached ? iItems[ -- iSize ] * iTop : iTop ;
+								break ;
+							case Primitive.LESSER :
+								iTop = bCached ? ( iItems[ -- iSize ] < iTop ? -1 : 0 ) : iTop ;
+								break ;
+							case Primitive.GREATER :
+								iTop = bCached ? ( iItems[ -- iSize ] > iTop ? -1 : 0 ) : iTop ;
+								break ;
+							case Primitive.EQUAL :
+								iTop = bCached ? ( iItems[ -- iSize ] == iTop ? -1 : 0 ) : iTop ;
+								break ;
+							case Primitive.NOT_EQUAL :
+								iTop = bCached ? ( iItems[ -- iSize ] != iTop ? -1 : 0 ) : iTop ;
+								break ;
+							case Primitive.SWAP :
+								if ( bCached )
+								{
+									iNext = iItems[ iSize - 1 ] ;
+									iItems[ iSize - 1 ] = iTop ;
+									iTop = iNext ;
+								}
+								break ;
+							case Primitive.DUP :
+								bCached = iSize + 1 < iMax - 1 ;
+								if ( bCached )
+								{
+									iItems[ iSize ++ ] = iTop ;
+								}
+								break ;
+							case Primitive.OVER :
+								bCached = bCached && iSize + 1 < iMax - 1 ;
+								if ( bCached )
+								{
+									iItems[ iSize ] = iTop ;
+									iTop = iItems[ iSize - 1 ] ;
+									++ iSize ;
+								}
+								break ;
+							case Primitive.DROP :
+								// Take the next item as the top, if there is one
+								if ( bCached )
+								{
+									iTop = iItems[ -- iSize ] ;
+								}
+								else
+								{
+									this.getPStack().setSize( 0 ) ;
+									bTop = false ;
+								}
+								bCached = true ;
+								break ;
+							default :
+								bCached = false ;
+								break ;
+							}
+							if ( bCached )
+							{
+								iPC = iPC + 3 ;
+								continue ;
+							}
+							break ;
+						case Bytecode.BRANCH_ZERO :
+							if ( bTop )
+							{
+								// 0 is false, so jump to else clause
+								iPC = iTop == 0 ? iCode[ iPC + 1 ] : iPC + 2 ;
+								if ( iSize > 0 )
+								{
+									iTop = iItems[ -- iSize ] ;
+								}
+								else
+								{
+									this.getPStack().setSize( 0 ) ;
+									bTop = false ;
+								}
+								continue ;
+							}
+							break ;
+						}
+						// Put the top back
+						if ( bTop )
+						{
+							this.getPStack().setSize( iSize ) ;
+							this.getPStack().push( iTop ) ;
+							bTop = false ;
+						}
+					}
+					switch ( iCode[ iPC ++ ] )
+					{
+					case Bytecode.HALT :
+						// End of the code
+						if ( this.getCStack().getSize() == iBase )
+						{
+							bRunning = false ;
+						}
+						// End of a word, so return to the calling word
+						else
+						{
+							bCalledRC = bRC ;
+							code = this.getCStack().getCaller() ;
+							iCode = code.getCode() ;
+							szConstants = code.getConstants() ;
+							iPC = this.getCStack().getReturn() ;
+							bRC = this.getCStack().getError() ;
+							// End any loops an error stopped
+							this.getLStack().setSize( this.getCStack().getLoops() ) ;
+							if ( bCalledRC )
+							{
+								// If errors occurred, print error
+								this.printError( ErrorType.WORDUNDEFINED 
+										, this.getCStack().getName() ) ;
+							}
+							this.getCStack().pop() ;
+							if ( this.profiler != null )
+							{
+								this.profiler.exitTo( this.getCStack().getSize() ) ;
+							}
+						}
+						break ;
+					case Bytecode.LITERAL_OP :
+						iNext = this.execFused( iCode , iPC ) ;
+						if ( iNext >= 0 )
+						{
+							iPC = iNext ;
+						}
+						// If not executed, execute as the literal
+						else
+						{
+							this.getPStack().push( iCode[ iPC ++ ] ) ;
+						}
+						break ;
+					case Bytecode.LITERAL :
+						this.getPStack().push( iCode[ iPC ++ ] ) ;
+						break ;
+					case Bytecode.LITERAL_ERROR :
+						// Throws the same error as parsing when executed
+						this.getPStack().push( 
+								Integer.parseInt( szConstants[ iCode[ iPC ++ ] ] ) ) ;
+						break ;
+					case Bytecode.WORD :
+						// Execute word, or find the word to call
+						site = code.getSites()[ iCode[ iPC ++ ] ] ;
+						word = this.findWord( site ) ;
+						break ;
+					case Bytecode.CONSTANT_FOLD :
+						iNext = this.execFused( iCode , iPC ) ;
+						if ( iNext >= 0 )
+						{
+							iPC = iNext ;
+						}
+						// If not executed, execute the literals and primitive
+						else
+						{
+							iPC = iPC + 2 ;
+						}
+						break ;
+					case Bytecode.OVER_OVER :
+					case Bytecode.DUP_MULTIPLY :
+					case Bytecode.SWAP_DROP :
+					case Bytecode.DROP_DROP :
+					case Bytecode.COMPARE_BRANCH :
+						iNext = this.execFused( iCode , iPC ) ;
+						if ( iNext >= 0 )
+						{
+							iPC = iNext ;
+						}
+						// If not executed, execute as the first primitive
+						else
+						{
+							site = code.getSites()[ iCode[ iPC + 1 ] ] ;
+							word = this.execPrimitive( iCode[ iPC ] , site ) ;
+							iPC = iPC + 2 ;
+						}
+						break ;
+					case Bytecode.PRIMITIVE :
+						site = code.getSites()[ iCode[ iPC + 1 ] ] ;
+						word = this.execPrimitive( iCode[ iPC ] , site ) ;
+						iPC = iPC + 2 ;
+						break ;
+					case Bytecode.PRINT :
+						System.out.print( szConstants[ iCode[ iPC ++ ] ] ) ;
+						break ;
+					case Bytecode.DEFINE :
+						// Add definition
+						this.getDictionary().addWord( szConstants[ iCode[ iPC ] ] 
+								, szConstants[ iCode[ iPC + 1 ] ] ) ;
+						iPC = iPC + 2 ;
+						break ;
+					case Bytecode.FORGET :
+						// Revert or remove word
+						this.getDictionary().undefineWord( szConstants[ iCode[ iPC ++ ] ] ) ;
+						break ;
+					case Bytecode.VARIABLE :
+						// Define name
+						this.getDictionary().addVariable( iCode[ iPC ++ ] ) ;
+						break ;
+					case Bytecode.VARIABLE_STORE :
+						// Pop stack into variable
+						this.getDictionary().setVariable( iCode[ iPC ++ ] 
+								, this.getPStack().pop() ) ;
+						break ;
+					case Bytecode.VARIABLE_GET :
+						// Push variable value to stack
+						this.getPStack().push( 
+								this.getDictionary().getVariable( iCode[ iPC ++ ] ) ) ;
+						break ;
+					case Bytecode.VARIABLE_PRINT :
+						// Print variable value
+						System.out.print( 
+								this.getDictionary().getVariable( iCode[ iPC ++ ] ) ) ;
+						break ;
+					case Bytecode.UNDEFINED :
+						// Undefined variable operation (word), print error
+						this.printError( ErrorType.WORDUNDEFINED 
+								, szConstants[ iCode[ iPC ++ ] ] ) ;
+						break ;
+					case Bytecode.SYNTAX :
+						this.printError( ErrorType.SYNTAX , szConstants[ iCode[ iPC ++ ] ] ) ;
+						bRC = true ;
+						break ;
+					case Bytecode.BREAK :
+						this.breakpoint() ;
+						break ;
+					case Bytecode.BRANCH_ZERO :
+						// 0 is false, so jump to else clause
+						if ( this.getPStack().pop() == 0 )
+						{
+							iPC = iCode[ iPC ] ;
+						}
+						else
+						{
+							++ iPC ;
+						}
+						break ;
+					case Bytecode.JUMP :
+						iPC = iCode[ iPC ] ;
+						break ;
+					case Bytecode.DO :
+						// Start new loop. Start is on top of end
+						this.getLStack().push( this.getPStack().pop() , this.getPStack().pop() ) ;
+						break ;
+					case Bytecode.LOOP_TEST :
+						// While counter has not reached end point
+						if ( this.getLStack().checkRunning() )
+						{
+							// Each iteration is a step
+							this.useIteration() ;
+							++ iPC ;
+						}
+						// If finished, end loop
+						else
+						{
+							this.getLStack().pop() ;
+							iPC = iCode[ iPC ] ;
+						}
+						break ;
+					case Bytecode.LOOP :
+						// Increment counter
+						this.getLStack().increment( 1 ) ;
+						iPC = iCode[ iPC ] ;
+						break ;
+					case Bytecode.PLUS_LOOP :
+						// Add top of stack to counter
+						this.getLStack().increment( this.getPStack().pop() ) ;
+						iPC = iCode[ iPC ] ;
+						break ;
+					default :
+						// Should never happen
+						this.printError( ErrorType.UNEXPECTED , "[INTERNAL ERROR]" ) ;
+						this.getCStack().setSize( iBase ) ;
+						if ( this.profiler != null )
+						{
+							this.profiler.exitTo( iBase ) ;
+						}
+						bRC = true ;
+						bRunning = false ;
+						break ;
+					}
+
+					// Call user-defined word, unless it can run without calling
+					if ( word != null && this.execFast( word , site.getName() ) == false )
+					{
+						// Calling a word is a step
+						this.useFuel() ;
+						// If the calling word returns straight after, and has no errors,
+						// replace it instead of returning to it
+						if ( this.getCStack().getSize() > iBase && bRC == false 
+								&& code.checkReturns( iPC ) )
+						{
+							this.getCStack().setName( site.getName() ) ;
+							if ( this.profiler != null )
+							{
+								this.profiler.exitTo( this.getCStack().getSize() - 1 ) ;
+							}
+						}
+						else
+						{
+							this.pushCall( code , iPC , bRC , site.getName() ) ;
+						}
+						if ( this.profiler != null )
+						{
+							this.profiler.enter( site.getName() , this.getCStack().getSize() ) ;
+						}
+						code = word.getBytecode( this.bOptimise ) ;
+						iCode = code.getCode() ;
+						szConstants = code.getConstants() ;
+						iPC = 0 ;
+						bRC = false ;
+					}
+				}
+			}
+			catch ( final BudgetExceededException e )
+			{
+				// Stop the whole execution
+				this.getCStack().setSize( iBase ) ;
+				if ( this.profiler != null )
+				{
+					this.profiler.exitTo( iBase ) ;
+				}
+				throw e ;
+			}
+			catch ( final RuntimeException e )
+			{
+				// Errors in the code itself are handled by the caller
+				if ( this.getCStack().getSize() == iBase )
+				{
+					throw e ;
+				}
+				// Errors in a word are handled in the same way as executeWord,
+				// so print error message and return from the word 
+				System.err.println( e.getMessage() ) ;
+				bRC = true ;
+				iPC = iCode.length - 1 ; // Code always ends with HALT
+			}
+		}
+
+		return bRC ;
+	}
+
+	/**
+	 * Executes a superinstruction from the BytecodeCompiler, unless one of 
+	 * its primitives has been redefined, or it would overflow or underflow 
+	 * the stack, in which case the instructions are executed one at a time
+	 * so that the same errors occur
+	 * @param iPC is the index of the superinstruction's operands
+	 * @return the index of the next instruction, or -1 if not executed 
+	 */
+	private int execFused( final int[] iCode , final int iPC )
+	{
+		final ParamStack stack = this.getPStack() ;
+		final int iSize = stack.getSize() ;
+		// Number of items that can be pushed without the stack being full
+		final int iRoom = stack.getMaxSize() - 1 - iSize ;
+		int iRet = -1 ;
+		int n1 ;
+		int n2 ;
+
+		switch ( iCode[ iPC - 1 ] )
+		{
+		case Bytecode.CONSTANT_FOLD : // id n LITERAL n1 LITERAL n2 PRIMITIVE id site
+			if ( iRoom >= 2 && this.getDictionary().checkPrimitive( iCode[ iPC ] ) )
+			{
+				stack.push( iCode[ iPC + 1 ] ) ;
+				iRet = iPC + 9 ;
+			}
+			break ;
+		case Bytecode.LITERAL_OP : // LITERAL n PRIMITIVE id site
+			if ( iSize >= 1 && iRoom >= 1 
+					&& this.getDictionary().checkPrimitive( iCode[ iPC + 2 ] ) )
+			{
+				stack.push( Primitive.calculate( iCode[ iPC + 2 ] 
+						, stack.pop() , iCode[ iPC ] ) ) ;
+				iRet = iPC + 4 ;
+			}
+			break ;
+		case Bytecode.OVER_OVER : // PRIMITIVE over site PRIMITIVE over site
+			if ( iSize >= 2 && iRoom >= 2 
+					&& this.getDictionary().checkPrimitive( Primitive.OVER ) )
+			{
+				n1 = stack.peek( iSize - 2 ) ;
+				n2 = stack.peek( iSize - 1 ) ;
+				stack.push( n1 ) ;
+				stack.push( n2 ) ;
+				iRet = iPC + 5 ;
+			}
+			break ;
+		case Bytecode.DUP_MULTIPLY : // PRIMITIVE dup site PRIMITIVE * site
+			if ( iSize >= 1 && iRoom >= 1 
+					&& this.getDictionary().checkPrimitive( Primitive.DUP ) 
+					&& this.getDictionary().checkPrimitive( Primitive.MULTIPLY ) )
+			{
+				n1 = stack.pop() ;
+				stack.push( n1 * n1 ) ;
+				iRet = iPC + 5 ;
+			}
+			break ;
+		case Bytecode.SWAP_DROP : // PRIMITIVE swap site PRIMITIVE drop site
+			if ( iSize >= 2 
+					&& this.getDictionary().checkPrimitive( Primitive.SWAP ) 
+					&& this.getDictionary().checkPrimitive( Primitive.DROP ) )
+			{
+				n2 = stack.pop() ;
+				stack.pop() ;
+				stack.push( n2 ) ;
+				iRet = iPC + 5 ;
+			}
+			break ;
+		case Bytecode.DROP_DROP : // PRIMITIVE drop site PRIMITIVE drop site
+			if ( iSize >= 2 && this.getDictionary().checkPrimitive( Primitive.DROP ) )
+			{
+				stack.pop() ;
+				stack.pop() ;
+				iRet = iPC + 5 ;
+			}
+			break ;
+		case Bytecode.COMPARE_BRANCH : // PRIMITIVE id site BRANCH_ZERO target
+			if ( iSize >= 2 && this.getDictionary().checkPrimitive( iCode[ iPC ] ) )
+			{
+				n2 = stack.pop() ;
+				n1 = stack.pop() ;
+				// 0 is false, so jump to else clause
+				if ( Primitive.calculate( iCode[ iPC ] , n1 , n2 ) == 0 )
+				{
+					iRet = iCode[ iPC + 3 ] ;
+				}
+				else
+				{
+					iRet = iPC + 4 ;
+				}
+			}
+			break ;
+		}
+		// Count superinstructions executed
+		if ( iRet >= 0 )
+		{
+			++ this.lFused[ iCode[ iPC - 1 ] ] ;
+		}
+		return iRet ;
+	}
+	/** Executes a primitive of the bytecode engine, without looking up
+	 * the word unless it has been redefined
+	 * @param iPrimitive is the primitive's id
+	 * @param site is where the primitive's name is looked up if redefined
+	 * @return the Word to call, or null */
+	private Word execPrimitive( final int iPrimitive , final CallSite site )
+	{
+		// If not redefined, execute without looking up the word
+		if ( this.getDictionary().checkPrimitive( iPrimitive ) )
+		{
+			this.execPrimitive( iPrimitive ) ;
+			return null ;
+		}
+		// Otherwise execute as a normal word
+		return this.findWord( site ) ;
+	}
+	/** Executes a word by name in the same way as execWord, except that
+	 * a user-defined word is returned to be called by the bytecode engine
+	 * @return the Word to call, or null */
+	private Word findWord( final CallSite site )
+	{
+		Word ret = null ;
+
+		// Look up again only if the dictionary has changed
+		site.update( this.getDictionary() ) ;
+		switch ( site.getKind() )
+		{
+		case CallSite.PRIMITIVE :
+			// If defined as self, is primitive, so execute 
+			this.execPrimitive( site.getPrimitive() ) ;
+			break ;
+		case CallSite.WORD :
+			// If defined, return
+			ret = site.getWord() ;
+			break ;
+		case CallSite.UNDEFINED :
+			// If undefined, print error
+			this.printError( ErrorType.WORDUNDEFINED , site.getName() ) ;
+			break ;
+		}
+
+		return ret ;
+	}
+
+	/** Interprets a word. Package-private for the ClosureCompiler */
+	boolean execWord( final CallSite site )
+	{
+		boolean bRC = false ; 
+
+		// Look up again only if the dictionary has changed
+		site.update( this.getDictionary() ) ;
+		switch ( site.getKind() )
+		{
+		case CallSite.PRIMITIVE :
+			// If defined as self, is primitive, so execute 
+			this.execPrimitive( site.getPrimitive() ) ;
+			break ;
+		case CallSite.WORD :
+			// If defined, interpret, unless it can run without calling
+			// Will recurse if execWord is called by execute
+			if ( this.execFast( site.getWord() , site.getName() ) == false )
+			{
+				bRC = this.executeWord( site.getWord() , site.getName() ) ;
+			}
+			break ;
+		case CallSite.UNDEFINED :
+			// If undefined, return true
+			bRC = true ;
+			break ;
+		}
+
+		return bRC ;
+	}
+
+	/** Executes a user-defined word without calling it, as JVM code or 
+	 * with its stack checked once, if enabled
+	 * @return false if not executed, so the word must be called */
+	private boolean execFast( final Word word , final String szName )
+	{
+		final boolean bRet ;
+
+		if ( this.profiler == null || ( this.bJit == false && this.bUnchecked == false ) )
+		{
+			return ( this.bJit && this.execCompiled( word ) ) 
+					|| ( this.bUnchecked && this.execVerified( word ) ) ;
+		}
+		// Profiled as a call, unless it was not executed
+		this.profiler.enter( szName , this.getCStack().getSize() + 1 ) ;
+		bRet = ( this.bJit && this.execCompiled( word ) ) 
+				|| ( this.bUnchecked && this.execVerified( word ) ) ;
+		if ( bRet )
+		{
+			this.profiler.exitTo( this.getCStack().getSize() ) ;
+		}
+		else
+		{
+			this.profiler.cancel() ;
+		}
+		return bRet ;
+	}
+	/** Executes a user-defined word compiled to JVM code, if it has been 
+	 * compiled and can run without errors
+	 * @return false if not executed, so the word must be interpreted */
+	private boolean execCompiled( final Word word )
+	{
+		final CompiledWord compiled = word.getCompiled( this.iJitThreshold ) ;
+		final ParamStack stack = this.getPStack() ;
+		final long lFuelLeft = this.lFuelLeft ;
+		int iSize ;
+
+		// The code does not check the stack, so checks all it needs first.
+		// Also left to the interpreter to report a full call stack
+		if ( compiled == null || stack.getSize() < compiled.getDepth()
+				|| compiled.getGrowth() > stack.getMaxSize() - 1 - stack.getSize()
+				|| this.getCStack().getSize() >= this.getCStack().getMaxSize()
+				|| compiled.checkPrimitives( this.getDictionary() ) == false )
+		{
+			return false ;
+		}
+		try
+		{
+			// Calling a word is a step
+			this.useFuel() ;
+			stack.ensureCapacity( stack.getSize() + compiled.getGrowth() ) ;
+			iSize = compiled.run( this , stack.getItems() , stack.getSize() ) ;
+		}
+		catch ( final BudgetExceededException e )
+		{
+			// The stack is only changed when the code returns, and the code
+			// has no other effects, so the interpreter can run the word 
+			// again and stop at the same point. The steps used are given 
+			// back, and execFast drops the profiler's counts for the call
+			this.lFuelLeft = lFuelLeft ;
+			return false ;
+		}
+		if ( iSize < 0 )
+		{
+			// Division by zero, to be reported by the interpreter
+			this.lFuelLeft = lFuelLeft ;
+			return false ;
+		}
+		stack.setSize( iSize ) ;
+		return true ;
+	}
+
+	/** Executes a user-defined word with a verified stack effect. The stack
+	 * is checked once, then the word's Bytecode is executed without checks
+	 * @return false if not executed, so the word must be called */
+	private boolean execVerified( final Word word )
+	{
+		final StackEffect effect = word.getStackEffect() ;
+		final ParamStack stack = this.getPStack() ;
+		final int[] iCode ;
+		final int[] s ;
+		int n ;
+		int iPC = 0 ;
+		int iTemp ;
+
+		// Errors from the stack, from a full call stack, or from dividing by 
+		// 0 are left to the interpreter to report
+		if ( effect == null || effect.getDivisorsChecked() == false 
+				|| stack.getSize() < effect.getDepth()
+				|| effect.getGrowth() > stack.getMaxSize() - 1 - stack.getSize()
+				|| this.getCStack().getSize() >= this.getCStack().getMaxSize()
+				|| effect.checkPrimitives( this.getDictionary() ) == false )
+		{
+			return false ;
+		}
+		// Calling a word is a step
+		this.useFuel() ;
+
+		iCode = effect.getCode() ;
+		stack.ensureCapacity( stack.getSize() + effect.getGrowth() ) ;
+		s = stack.getItems() ;
+		n = stack.getSize() ;
+		try
+		{
+			while ( iCode[ iPC ] != Bytecode.HALT )
+			{
+				switch ( iCode[ iPC ] )
+				{
+				case Bytecode.LITERAL :
+					s[ n ++ ] = iCode[ iPC + 1 ] ;
+					iPC = iPC + 2 ;
+					break ;
+				case Bytecode.BRANCH_ZERO :
+					// 0 is false, so jump to else clause
+					iPC = s[ -- n ] == 0 ? iCode[ iPC + 1 ] : iPC + 2 ;
+					break ;
+				case Bytecode.JUMP :
+					iPC = iCode[ iPC + 1 ] ;
+					break ;
+				case Bytecode.DO :
+					// Start is on top of end
+					this.getLStack().push( s[ n - 1 ] , s[ n - 2 ] ) ;
+					n = n - 2 ;
+					++ iPC ;
+					break ;
+				case Bytecode.LOOP_TEST :
+					if ( this.getLStack().checkRunning() )
+					{
+						// Each iteration is a step
+						this.useIteration() ;
+						iPC = iPC + 2 ;
+					}
+					else
+					{
+						this.getLStack().pop() ;
+						iPC = iCode[ iPC + 1 ] ;
+					}
+					break ;
+				case Bytecode.LOOP :
+					this.getLStack().increment( 1 ) ;
+					iPC = iCode[ iPC + 1 ] ;
+					break ;
+				case Bytecode.PLUS_LOOP :
+					this.getLStack().increment( s[ -- n ] ) ;
+					iPC = iCode[ iPC + 1 ] ;
+					break ;
+				case Bytecode.PRIMITIVE :
+					if ( Primitive.checkBinary( iCode[ iPC + 1 ] ) )
+					{
+						// Divisors are known not to be 0
+						s[ n - 2 ] = Primitive.calculate( iCode[ iPC + 1 ] , s[ n - 2 ] , s[ n - 1 ] ) ;
+						-- n ;
+					}
+					else
+					{
+						switch ( iCode[ iPC + 1 ] )
+						{
+						case Primitive.DROP :
+							-- n ;
+							break ;
+						case Primitive.SWAP :
+							iTemp = s[ n - 1 ] ;
+							s[ n - 1 ] = s[ n - 2 ] ;
+							s[ n - 2 ] = iTemp ;
+							break ;
+						case Primitive.DUP :
+							s[ n ] = s[ n - 1 ] ;
+							++ n ;
+							break ;
+						case Primitive.OVER :
+							s[ n ] = s[ n - 2 ] ;
+							++ n ;
+							break ;
+						case Primitive.ROT :
+							iTemp = s[ n - 3 ] ;
+							s[ n - 3 ] = s[ n - 2 ] ;
+							s[ n - 2 ] = s[ n - 1 ] ;
+							s[ n - 1 ] = iTemp ;
+							break ;
+						case Primitive.I :
+							s[ n ++ ] = this.getLStack().getCounter( 0 ) ;
+							break ;
+						case Primitive.J :
+							s[ n ++ ] = this.getLStack().getCounter( 1 ) ;
+							break ;
+						case Primitive.LEAVE :
+							this.getLStack().leave() ;
+							break ;
+						case Primitive.TRUE :
+							s[ n ++ ] = -1 ;
+							break ;
+						case Primitive.FALSE :
+							s[ n ++ ] = 0 ;
+							break ;
+						case Primitive.ZERO_EQUAL :
+						case Primitive.INVERT :
+							s[ n - 1 ] = s[ n - 1 ] == 0 ? -1 : 0 ;
+							break ;
+						case Primitive.ZERO_LESSER :
+							s[ n - 1 ] = s[ n - 1 ] < 0 ? -1 : 0 ;
+							break ;
+						case Primitive.ZERO_GREATER :
+							s[ n - 1 ] = s[ n - 1 ] > 0 ? -1 : 0 ;
+							break ;
+						case Primitive.ONE_PLUS :
+							++ s[ n - 1 ] ;
+							break ;
+						case Primitive.TWO_DUP :
+							s[ n ] = s[ n - 2 ] ;
+							s[ n + 1 ] = s[ n - 1 ] ;
+							n = n + 2 ;
+							break ;
+						case Primitive.TWO_DROP :
+							n = n - 2 ;
+							break ;
+						case Primitive.OR :
+							s[ n - 2 ] = s[ n - 2 ] + s[ n - 1 ] == 0 ? 0 : -1 ;
+							-- n ;
+							break ;
+						case Primitive.AND :
+							s[ n - 2 ] = s[ n - 2 ] * s[ n - 1 ] == 0 ? 0 : -1 ;
+							-- n ;
+							break ;
+						case Primitive.DIVIDE_MOD :
+							iTemp = s[ n - 2 ] ;
+							s[ n - 2 ] = iTemp % s[ n - 1 ] ;
+							s[ n - 1 ] = iTemp / s[ n - 1 ] ;
+							break ;
+						case Primitive.ABS :
+							s[ n - 1 ] = s[ n - 1 ] < 0 ? -1 * s[ n - 1 ] : s[ n - 1 ] ;
+							break ;
+						case Primitive.NEGATE :
+							s[ n - 1 ] = -1 * s[ n - 1 ] ;
+							break ;
+						case Primitive.MIN :
+							s[ n - 2 ] = s[ n - 2 ] < s[ n - 1 ] ? s[ n - 2 ] : s[ n - 1 ] ;
+							-- n ;
+							break ;
+						case Primitive.MAX :
+							s[ n - 2 ] = s[ n - 2 ] > s[ n - 1 ] ? s[ n - 2 ] : s[ n - 1 ] ;
+							-- n ;
+							break ;
+						}
+					}
+					iPC = iPC + 3 ;
+					break ;
+				}
+			}
+		}
+		finally
+		{
+			// Also when out of steps, so the stack is as far as executed
+			stack.setSize( n ) ;
+		}
+		return true ;
+	}
+
+	/** Executes a primitive 
+	 * @param iPrimitive is the id of the primitive from Primitive */
+	void execPrimitive( final int iPrimitive )
+	{
+		switch ( iPrimitive )
+		{
+		case Primitive.ADD :
+			this.add() ;
+			break ;
+		case Primitive.SUBTRACT :
+			this.subtract() ;
+			break ;
+		case Primitive.MULTIPLY :
+			this.multiply() ; 
+			break ;
+		case Primitive.DIVIDE :
+			this.divide() ; 
+			break ;
+		case Primitive.PRINT_TOP : 
+			this.printTop() ; 
+			break ;
+		case Primitive.PRINT_NUM_RJ : 
+			this.printNumRJ() ;
+			break ; 
+		case Primitive.CR : 
+			System.out.println() ;
+			break ; 
+		case Primitive.WORDS :
+			this.printWords() ; 
+			break ;
+		case Primitive.ABORT : 
+			// Clear stacks 
+			this.getPStack().reset() ; 
+			break ; 
+		case Primitive.LEAVE :
+			// Exit loop when 'loop' is next reached
+			this.getLStack().leave() ;
+			break ; 
+		case Primitive.I :
+			// Copy inner loop's counter to stack
+			this.getPStack().push( this.getLStack().getCounter( 0 ) ) ;
+			break ;
+		case Primitive.J :
+			// Copy outer loop's counter to stack
+			this.getPStack().push( this.getLStack().getCounter( 1 ) ) ;
+			break ;
+		case Primitive.DROP :
+			this.dropTop() ;
+			break ;
+		case Primitive.SWAP :
+			this.swap() ;
+			break ;
+		case Primitive.DUP : 
+			this.dup() ;
+			break ;
+		case Primitive.OVER :
+			this.over() ;
+			break ;
+		case Primitive.ROT :
+			this.rot() ; 
+			break ; 
+		case Primitive.TO_R : 
+			// Move to return from parameter stack
+			this.getRStack().push( this.getPStack().pop() ) ;
+			break ; 
+		case Primitive.R_FROM :
+			// Move from return to parameter stack
+			this.getPStack().push( this.getRStack().pop() ) ;
+			break ;
+		case Primitive.R_FETCH : 
+			// Copy from return to parameter stack
+			this.getPStack().push( this.getRStack().peek() ) ;
+			break ; 
+		case Primitive.LESSER :
+			this.checkLesser() ; 
+			break ;
+		case Primitive.GREATER :
+			this.checkGreater() ;
+			break ;
+		case Primitive.EQUAL :
+			this.checkEqual() ;
+			break ;
+		case Primitive.NOT_EQUAL :
+			this.checkNotEqual() ;
+			break ;
+		case Primitive.MOD : 
+			this.mod() ;
+			break ; 
+		case Primitive.PRINT_STACK :
+			this.printStack() ;
+			break ;
+		case Primitive.KEY :
+			this.getKeyCode() ; 
+			break ; 
+		case Primitive.EMIT : 
+			this.emit() ;
+			break ; 
+		case Primitive.ACCEPT :
+			this.readString() ;
+			break ; 
+		case Primitive.PROFILE :
+			this.printProfile() ;
+			break ;
+		case Primitive.START_SAMPLING :
+			this.startSampling( SamplingProfiler.DEFAULT_INTERVAL ) ;
+			break ;
+		case Primitive.STOP_SAMPLING :
+			// Print the samples, to be given to a flame graph tool
+			if ( this.sampler != null )
+			{
+				System.out.print( this.stopSampling().getCollapsed() ) ;
+			}
+			break ;
+		case Primitive.BUDGET :
+			this.lowerFuel( this.getPStack().pop() ) ;
+			break ;
+		default :
+			this.execPredefined( iPrimitive ) ;
+			break ;
+		}
+		return ;
+	}
+	/** Executes a predefined word as one operation. These were defined in 
+	 * Forth, so if the result would not be the same as the Forth definition,
+	 * such as when the stack is too small, the definition is executed instead */
+	private void execPredefined( final int iPrimitive )
+	{
+		final ParamStack stack = this.getPStack() ;
+		boolean bNative = false ;
+		int n1 ;
+		int n2 ;
+		int n3 ;
+
+		switch ( iPrimitive )
+		{
+		case Primitive.TRUE :
+			stack.push( -1 ) ;
+			bNative = true ;
+			break ;
+		case Primitive.FALSE :
+			stack.push( 0 ) ;
+			bNative = true ;
+			break ;
+		case Primitive.ZERO_EQUAL :
+		case Primitive.INVERT :
+			if ( this.checkStack( 1 , 1 ) )
+			{
+				stack.push( stack.pop() == 0 ? -1 : 0 ) ;
+				bNative = true ;
+			}
+			break ;
+		case Primitive.ZERO_LESSER :
+			if ( this.checkStack( 1 , 1 ) )
+			{
+				stack.push( stack.pop() < 0 ? -1 : 0 ) ;
+				bNative = true ;
+			}
+			break ;
+		case Primitive.ZERO_GREATER :
+			if ( this.checkStack( 1 , 1 ) )
+			{
+				stack.push( stack.pop() > 0 ? -1 : 0 ) ;
+				bNative = true ;
+			}
+			break ;
+		case Primitive.ONE_PLUS :
+			if ( this.checkStack( 1 , 1 ) )
+			{
+				stack.push( stack.pop() + 1 ) ;
+				bNative = true ;
+			}
+			break ;
+		case Primitive.TWO_DUP :
+			if ( this.checkStack( 2 , 2 ) )
+			{
+				n2 = stack.pop() ;
+				n1 = stack.pop() ;
+				stack.push( n1 ) ;
+				stack.push( n2 ) ;
+				stack.push( n1 ) ;
+				stack.push( n2 ) ;
+				bNative = true ;
+			}
+			break ;
+		case Primitive.TWO_DROP :
+			if ( this.checkStack( 2 , 0 ) )
+			{
+				stack.pop() ;
+				stack.pop() ;
+				bNative = true ;
+			}
+			break ;
+		case Primitive.OR :
+			if ( this.checkStack( 2 , 0 ) )
+			{
+				stack.push( stack.pop() + stack.pop() == 0 ? 0 : -1 ) ;
+				bNative = true ;
+			}
+			break ;
+		case Primitive.AND :
+			if ( this.checkStack( 2 , 0 ) )
+			{
+				stack.push( stack.pop() * stack.pop() == 0 ? 0 : -1 ) ;
+				bNative = true ;
+			}
+			break ;
+		case Primitive.SPACES :
+			// A negative number never ends the loop
+			if ( this.checkStack( 1 , 1 ) && stack.peek() >= 0 )
+			{
+				n1 = stack.pop() ;
+				for ( int i = 0 ; i < n1 ; i ++ )
+				{
+					// Each iteration is a step
+					this.useFuel() ;
+					System.out.print( ' ' ) ;
+				}
+				bNative = true ;
+			}
+			break ;
+		case Primitive.DIVIDE_MOD :
+			if ( this.checkStack( 2 , 2 ) && stack.peek() != 0 )
+			{
+				n2 = stack.pop() ;
+				n1 = stack.pop() ;
+				stack.push( n1 % n2 ) ;
+				stack.push( n1 / n2 ) ;
+				bNative = true ;
+			}
+			break ;
+		case Primitive.ABS :
+			if ( this.checkStack( 1 , 2 ) )
+			{
+				n1 = stack.pop() ;
+				stack.push( n1 < 0 ? -1 * n1 : n1 ) ;
+				bNative = true ;
+			}
+			break ;
+		case Primitive.NEGATE :
+			if ( this.checkStack( 1 , 1 ) )
+			{
+				stack.push( -1 * stack.pop() ) ;
+				bNative = true ;
+			}
+			break ;
+		case Primitive.MIN :
+			if ( this.checkStack( 2 , 2 ) )
+			{
+				n2 = stack.pop() ;
+				n1 = stack.pop() ;
+				stack.push( n1 < n2 ? n1 : n2 ) ;
+				bNative = true ;
+			}
+			break ;
+		case Primitive.MAX :
+			if ( this.checkStack( 2 , 2 ) )
+			{
+				n2 = stack.pop() ;
+				n1 = stack.pop() ;
+				stack.push( n1 > n2 ? n1 : n2 ) ;
+				bNative = true ;
+			}
+			break ;
+		case Primitive.MULTIPLY_DIVIDE :
+			// Uses the return stack
+			if ( this.checkStack( 3 , 0 ) && stack.peek() != 0 
+					&& this.getRStack().getFull() == false )
+			{
+				n3 = stack.pop() ;
+				n2 = stack.pop() ;
+				n1 = stack.pop() ;
+				stack.push( n1 * n2 / n3 ) ;
+				bNative = true ;
+			}
+			break ;
+		}
+
+		// Execute Forth definition
+		if ( bNative == false && Primitive.getSource( iPrimitive ) != null )
+		{
+			if ( this.sources[ iPrimitive ] == null )
+			{
+				this.sources[ iPrimitive ] = new Word( Primitive.getSource( iPrimitive ) ) ;
+			}
+			if ( this.executeWord( this.sources[ iPrimitive ] , Primitive.getName( iPrimitive ) ) )
+			{
+				// If errors occurred, print error
+				this.printError( ErrorType.WORDUNDEFINED , Primitive.getName( iPrimitive ) ) ;
+			}
+		}
+		return ;
+	}
+	/** @return true if the parameter stack has at least iDepth items, 
+	 * and iRoom items can be pushed without it being full */
+	private boolean checkStack( final int iDepth , final int iRoom )
+	{
+		return this.getPStack().getSize() >= iDepth 
+				&& this.getPStack().getSize() + iRoom <= this.getPStack().getMaxSize() - 1 ;
+	}
 
-		// Execute the parsed lexed code 
-		try
+	/** Resets the execution budget, ready for a new execution */
+	private void refuel()
+	{
+		// No limit is more steps than can be taken
+		this.lFuelStart = this.lFuel > 0 ? this.lFuel : Long.MAX_VALUE ;
+		this.lFuelLeft = this.lFuelStart ;
+		this.lStartTime = System.nanoTime() ;
+		this.lDeadline = this.lStartTime + this.lTimeLimit * 1000000 ;
+		this.getPStack().clearOverflowed() ;
+		this.getRStack().clearOverflowed() ;
+		return ;
+	}
+	/** Lowers the steps left in the current execution, for the budget 
+	 * word. Cannot raise them, nor change the limit set by the host for 
+	 * later executions, so code run with a limit cannot escape it
+	 * @param lSteps is the most steps that may be taken from now on */
+	private void lowerFuel( final long lSteps )
+	{
+		if ( lSteps < 0 )
 		{
-			bRC = this.executeAST( 
-					// Parse
-					parser.parse( 
-						// Tokenise 
-						lexer.tokenise(
-							// Replace all tab/newline characters with spaces 
-							szCode.replaceAll( "(\t|\n|\r)" , "  " )
-							// Add trailing space, as all words must 
-							// be followed by whitespace
-							+ "  " ) ) ) ;
+			System.err.println( "Error, invalid execution budget" ) ;
 		}
-		catch ( final RuntimeException e )
+		else if ( lSteps < this.lFuelLeft )
 		{
-			// If error occurs, print error message
-			System.err.println( e.getMessage() ) ;
-			bRC = true ; 
+			// Steps already taken still count as used
+			this.lFuelStart = this.lFuelStart - this.lFuelLeft + lSteps ;
+			this.lFuelLeft = lSteps ;
 		}
-		return bRC ; 
+		return ;
 	}
-
-	/**
-	 * Executes an abstract syntax tree from the Parser
-	 * @param ast
-	 * @return false if no errors, true otherwise
-	 */
-	public boolean executeAST( final AST ast )
+	/** Stops the execution if items were not pushed as a stack was full, 
+	 * instead of going on without them */
+	private void checkOverflow()
 	{
-		boolean bRC = false ;
-
-		// ast.display( ast.getRoot() , 0 ) ; 
-		// Execute the AST
-		bRC = this.executeExpression( ast.getRoot() ) ;
-
-		return bRC ; 
+		if ( this.pStack.getOverflowed() || this.rStack.getOverflowed() )
+		{
+			throw new BudgetExceededException( "Error, stack overflow, more than " 
+					+ ( this.iStackLimit - 1 ) + " items" ) ;
+		}
+		return ;
 	}
-
-	/**
-	 * Executes an AST.Expression 
-	 * @param expr is the Expression
-	 * @param state is used to store the state
-	 * @param szBuffer is used to transfer data between steps
-	 * @return
-	 */
-	public boolean executeExpression( final AST.Expression expr )
+	/** Uses a step of the execution budget. Called at safe points, which 
+	 * are each loop iteration and each call of a user-defined word */
+	private void useFuel()
 	{
-		int i ;
-
-		boolean bRC = false ; 
-
-		// If not leaf node
-		if ( expr.getChildren() == null == false )
+		// Throw error if out of steps
+		if ( -- this.lFuelLeft < 0 )
 		{
-			// For each child
-			for ( i = 0 ; i < expr.getChildren().getLength() ; i ++ )
-			{
-				// If not leaf
-				if ( ( expr.getChildren().peek( i ).getContent() == null ) == false )
-				{
-					// Execute expression
-					switch ( expr.getChildren().peek( i ).getContent().getType() )
-					{
-					case BREAK :
-						// Call method handling breakpoints
-						// In Interpreter, this does nothing
-						this.breakpoint() ; 
-						break ;
-					case COLON : // Advances i by 3
-						// Add definition
-						this.getDictionary().addWord( 
-								// Add name
-								expr.getChildren().peek( ++ i )
-								.getContent().getString()
-								// Add definition
-								, expr.getChildren().peek( ++ i )
-								.getContent().getString() ) ;
-						++ i ; // Skip semicolon
-						break ; 
-					case FORGET : // Advances i by 2
-						// Revert or remove word
-						this.getDictionary().undefineWord( 
-								expr.getChildren().peek( ++ i )
-								.getContent().getString() ) ;
-						break ;
-					case PRINT_START : // Advances i by 2 
-						// Print 
-						System.out.print( expr.getChildren().peek( ++ i )
-								.getContent().getString() ) ;
-						++ i ;
-						break ; 
-					case VARIABLE : // If word is 'variable'. Advances i by 1
-						// Define next name 
-						this.getDictionary().addVariable( 
-								expr.getChildren().peek( ++ i )
-								.getContent().getString() 
-								, "" ) ;
-						break ;
-					case VARIABLE_NAME : 
-						// Check next child
-						switch ( expr.getChildren().peek( i + 1 )
-								.getContent().getType() )
-						{
-						// Name should be current token, operation next token
-						// Add current token as variable name
-						case VARIABLE_STORE : 
-							// Pop stack into variable
-							this.getDictionary().addVariable( 
-									expr.getChildren().peek( i )
-									.getContent().getString() 
-									, "" + this.getPStack().pop() ) ;
-							break ; 
-						case VARIABLE_GET : 
-							// Push variable value to stack
-							this.getPStack().push( Integer.parseInt(	
-									this.getDictionary().getVariable( 
-											expr.getChildren().peek( i )
-											.getContent().getString() ) ) ) ; 
-							break ; 
-						case VARIABLE_PRINT :
-							// Print variable value
-							System.out.print( Integer.parseInt(	
-									this.getDictionary().getVariable( 
-											expr.getChildren().peek( i )
-											.getContent().getString() ) ) ) ;
-							break ; 
-						default : 
-							// Undefined variable operation (word), print error
-							this.printError( ErrorType.WORDUNDEFINED 
-									, expr.getChildren().peek( i )
-									.getContent().getString() ) ;
-							break ; 
-						}
-						++ i ; 
-						break ; 
-					case DO :
-						// Execute DO LOOP
-						i = i + this.execDoLoop( this.getPStack().pop() 
-								, this.getPStack().pop() , expr, ++ i , i ) ;				
-						break ; 
-					case IF : 
-						// Execute IF Statement
-						i = i + this.execIfStatement( expr , ++ i ) ; 
-						break ; 
-					case LITERAL : 
-						// Push current token content to stack
-						this.getPStack().push( 
-								Integer.parseInt( expr.getChildren().peek( i )
-										.getContent().getString() ) ) ;
-						break ;
-					case WORD : 
-						// Execute word
-						if ( this.execWord( expr.getChildren().peek( i )
-								.getContent().getString() ) )
-						{
-							// If errors occurred, print error
-							this.printError( ErrorType.WORDUNDEFINED 
-									, expr.getChildren().peek( i )
-									.getContent().getString() ) ;
-						}
-						break ;
-					case END : 
-					case COMMENT_START :
-					case COMMENT_CONTENT :
-					case COMMENT_END :
-						// Ignore these tokens
-						break ; 
-
-					default :
-						// If errors occurred, print error
-						this.printError( ErrorType.SYNTAX 
-								, expr.getChildren().peek( i )
-								.getContent().getString() ) ;
-						bRC = true ;
-						break ;
-					}
-				}
-				else
-				{
-					// Execute child
-					bRC = bRC || this.executeExpression( expr.getChildren().peek( i ) ) ;
-				}
-			}
+			throw new BudgetExceededException( "Error, execution budget of " 
+					+ this.lFuelStart + " steps exceeded" ) ;
 		}
-		else
+		// Throw error if out of time. Only checks the time every 1024 steps, 
+		// as getting the time is slower than counting steps
+		if ( ( this.lFuelLeft & 1023 ) == 0 && this.lTimeLimit > 0 
+				&& System.nanoTime() - this.lDeadline > 0 )
 		{
-			// If attempting to execute leaf node 
-			// (should never happen, but here just in case)
-			this.printError( ErrorType.UNEXPECTED 
-					, "[INTERNAL ERROR]" ) ;
-			bRC = true ; 
+			throw new BudgetExceededException( "Error, time limit of "
+					+ this.lTimeLimit + "ms exceeded" ) ;
 		}
-
-		return bRC ; 
+		this.checkOverflow() ;
+		return ;
 	}
-	/** Interprets a word */
-	private boolean execWord( final String szWord )
+	/** Uses a step of the execution budget for a loop iteration, which is
+	 * counted if profiling. Public to be called by words compiled to JVM code */
+	public void useIteration()
 	{
-		boolean bRC = false ; 
-
-		// If defined as self, is primitive, so execute 
-		if ( this.getDictionary().checkWordDefinedAs( szWord , szWord ) )
-		{
-			switch ( szWord.trim().toLowerCase() )
-			{
-			case "+" :
-				this.add() ;
-				break ;
-			case "-" :
-				this.subtract() ;
-				break ;
-			case "*":
-				this.multiply() ; 
-				break ;
-			case "/":
-				this.divide() ; 
-				break ;
-			case "." : 
-				this.printTop() ; 
-				break ;
-			case "u.r" : 
-				this.printNumRJ() ;
-				break ; 
-			case "cr" : 
-				System.out.println() ;
-				break ; 
-			case "words" :
-				this.printWords() ; 
-				break ;
-			case "abort" : 
-				// Clear stacks 
-				this.getPStack().reset() ; 
-				break ; 
-			case "leave" :
-				// Set counter to max to exit loop
-				this.getDictionary().addVariable( "i" 
-						, "" + Integer.MAX_VALUE ) ;
-				break ; 
-			case "drop" :
-				this.dropTop() ;
-				break ;
-			case "swap" :
-				this.swap() ;
-				break ;
-			case "dup" : 
-				this.dup() ;
-				break ;
-			case "over" :
-				this.over() ;
-				break ;
-			case "rot" :
-				this.rot() ; 
-				break ; 
-			case ">r" : 
-				// Move to return from parameter stack
-				this.getRStack().push( this.getPStack().pop() ) ;
-				break ; 
-			case "r>" :
-				// Move from return to parameter stack
-				this.getPStack().push( this.getRStack().pop() ) ;
-				break ;
-			case "r@" : 
-				// Copy from return to parameter stack
-				this.getPStack().push( this.getRStack().peek() ) ;
-				break ; 
-			case "<" :
-				this.checkLesser() ; 
-				break ;
-			case ">" :
-				this.checkGreater() ;
-				break ;
-			case "=" :
-				this.checkEqual() ;
-				break ;
-			case "<>" :
-				this.checkNotEqual() ;
-				break ;
-			case "mod" : 
-				this.mod() ;
-				break ; 
-			case ".s" :
-				this.printStack() ;
-				break ;
-			case "key" :
-				this.getKeyCode() ; 
-				break ; 
-			case "emit" : 
-				this.emit() ;
-				break ; 
-			case "accept" :
-				this.readString() ;
-				break ; 
-			}
-		}
-		// If defined, interpret
-		else if ( this.getDictionary().checkWordDefined( szWord ) ) 
-		{
-			// Will recurse if execWord is called by execute 
-			bRC = this.executeLine( this.getDictionary().getDefinition( szWord ) ) ;
-		}
-		// If undefined, return true
-		else if ( this.getDictionary().checkVariableDefined( szWord ) == false )  
+		if ( this.profiler != null )
 		{
-			bRC = true ; 
+			this.profiler.iterate() ;
 		}
-
-		return bRC ;
+		this.useFuel() ;
+		return ;
 	}
 
 	/** To be overridden with a method defining 
@@ -402,64 +1739,53 @@ public class Interpreter
 	private int execDoLoop( final int iStart , final int iEnd , 
 			final AST.Expression expr , int i , final int iInitialI )
 	{
-		int j = iStart ;
-		int iLoopNum = 0 ; 
-
-		// Keep outer loop's counter in word j
-		this.getDictionary().addWord( "j" 
-				, this.getDictionary().getDefinition( "i" ) ) ;
+		// Start new loop
+		this.getLStack().push( iStart , iEnd ) ;
 
-		// Changed from design in order to allow negative value for +loop
 		// While counter has not reached end point
-		while ( ( j < iEnd && iEnd > iStart ) || ( j > iEnd && iEnd < iStart ) )
+		while ( this.getLStack().checkRunning() )
 		{
-			// Increment loop count and throw error if maximum number of loops 
-			// is exceeded, due to bad condition
+			// Each iteration is a step. Throws error if the execution 
+			// budget is used up, due to bad condition
 			// Required to avoid freezing or OOM
-			if ( ++ iLoopNum > Interpreter.MAX_LOOP )
-			{
-				// Throw error
-				throw new RuntimeException( 
-						"Error, maximum number of iterations exceeded" ) ;
-			}
-
-			// Keep inner loop's counter in word i
-			this.getDictionary().addWord( "i" 
-					, "" + j ) ;
+			this.useIteration() ;
 
 			// For each child
-			for ( i = iInitialI ; i < expr.getChildren().getLength() ; i ++ )
+			for ( i = iInitialI ; i < expr.getChildCount() ; i ++ )
 			{
 				// If leaf
-				if ( expr.getChildren().peek( i ).getContent() == null == false )
+				if ( expr.getChild( i ).getContent() == null == false )
 				{
 					// If LOOP
-					if ( expr.getChildren().peek( i )
+					if ( expr.getChild( i )
 							.getContent().getType() == Token.Type.LOOP )
 					{
 						// If '+loop'
-						if ( expr.getChildren().peek( i ).getContent()
+						if ( expr.getChild( i ).getContent()
 								.getString().equalsIgnoreCase( "+loop" ) )
 						{
 							// Add top of stack to counter
-							j = j + this.getPStack().pop() ;
+							this.getLStack().increment( this.getPStack().pop() ) ;
 						}
 						// If 'loop'
 						else
 						{
 							// Increment counter
-							++ j ; 
+							this.getLStack().increment( 1 ) ;
 						}
 						// Loop
 						continue ;
 					}
 				}
 				// If not a leaf, or not LOOP, execute
-				this.executeExpression( expr.getChildren().peek( i ) ) ;
+				this.executeExpression( expr.getChild( i ) ) ;
 			}
 		}
+		// End loop
+		this.getLStack().pop() ;
 
-		return i ; 
+		// Skip past 'loop', even if the loop was not run
+		return expr.getChildCount() ;
 	}
 
 	/** Executes an if statement */
@@ -479,23 +1805,23 @@ public class Interpreter
 		}
 
 		// For each expression
-		for ( i = 0 ; i < expr.getChildren().getLength() ; i ++ )
+		for ( i = 0 ; i < expr.getChildCount() ; i ++ )
 		{
 			// If leaf
-			if ( ( expr.getChildren().peek( i ).getContent() == null ) == false )
+			if ( ( expr.getChild( i ).getContent() == null ) == false )
 			{
 				// If 'then', exit
-				if ( expr.getChildren().peek( i ).getContent().getType() 
+				if ( expr.getChild( i ).getContent().getType() 
 						== Token.Type.THEN )
 				{
 					break ; 
 				}
 				// If 'else', execute if condition is false (otherwise do nothing)
-				else if ( expr.getChildren().peek( i ).getContent().getType() 
+				else if ( expr.getChild( i ).getContent().getType() 
 						== toExec )
 				{
 					this.executeExpression( 
-							expr.getChildren().peek( ++ i ) ) ;
+							expr.getChild( ++ i ) ) ;
 				}
 			}
 		}
@@ -508,6 +1834,21 @@ public class Interpreter
 	{
 		System.out.print( this.getWords() ) ;
 	}
+	/** Prints the counts and times of the words called while profiling */
+	private void printProfile()
+	{
+		if ( this.profiler != null )
+		{
+			System.out.print( this.profiler.getReport() ) ;
+			System.out.printf( "stack high water %d, return stack high water %d%n" 
+					, this.getPStack().getHighWater() , this.getRStack().getHighWater() ) ;
+		}
+		else
+		{
+			System.out.print( "Profiling is off " ) ;
+		}
+		return ;
+	}
 	/** Gets a list of words */ 
 	public String getWords() 
 	{
@@ -782,7 +2123,7 @@ public class Interpreter
 	}
 
 	/** Prints error messages */
-	private void printError( final ErrorType type , final String szOffender )
+	void printError( final ErrorType type , final String szOffender )
 	{
 		switch ( type ) 
 		{
@@ -813,40 +2154,19 @@ public class Interpreter
 				, "dup" , "over" , "rot" , "+" , "-" , "*" , "/" , ".\"" , ".s" , "cr"
 				, ":" , "if" , "else" , "<" , ">" , "=" , "<>" , "mod" , "do" , "loop" 
 				, "+loop" , "leave" , "!" , "@" , "?" ,  "variable" , "key" , "emit" 
-				, "accept"
+				, "accept" , "i" , "j" , ".profile" , "start-sampling" , "stop-sampling" , "budget"
 		} ;
-		final String[][] szPredefined = {
-				{ "j" , "0" } // Used to store outer loop counter
-				, { "i" , "0" } // Used to store inner loop counter
-				, { "true" , "-1" } // True is -1
-				, { "false" , "0" } // False is 0
-				, { "0=" , "0 =" }
-				, { "0<" , "0 <" }
-				, { "0>" , "0 >" }
-				, { "1+" , "1 +" }
-				, { "2dup" , "over over" }
-				, { "2drop" , "drop drop" }
-				, { "invert" , "0 =" } 
-				, { "or" , "+ if -1 else 0 then" } // Boolean OR 
-				, { "and" , "* if -1 else 0 then" } // Boolean AND
-				, { "spaces" , "0 do 32 emit loop" } // Prints spaces 
-				, { "/mod" , "over over mod swap rot swap /" } 
-				, { "abs" , "dup 0 < if -1 * then" }
-				, { "negate" , "-1 *" } 
-				, { "min" , "over over < if drop else swap drop then" }
-				, { "max" , "over over > if drop else swap drop then" }
-				, { "*/" , ">r * r> /" }
-		} ; 
 
 		// Add built-in words
 		for ( int i = 0 ; i < szBuiltin.length ; i ++ )
 		{
 			this.getDictionary().addWord( szBuiltin[i] , szBuiltin[i] ) ; 
 		}
-		// Add predefined words
-		for ( int i = 0 ; i < szPredefined.length ; i ++ )
+		// Add predefined words. These are executed natively, 
+		// so are added in the same way as built-in words
+		for ( int i = Primitive.TRUE ; i < Primitive.getCount() ; i ++ )
 		{
-			this.getDictionary().addWord( szPredefined[i][0] , szPredefined[i][1] ) ;
+			this.getDictionary().addWord( Primitive.getName( i ) , Primitive.getName( i ) ) ;
 		}
 
 		return ;
@@ -880,6 +2200,43 @@ public class Interpreter
 		}
 		return ;
 	}
+	/** Sets the max size of the parameter and return stacks, kept when 
+	 * reset. Items that do not fit stop the execution */
+	public void setStackLimit( final int iStackLimit )
+	{
+		// Only set if room for an item
+		if ( iStackLimit > 1 )
+		{
+			this.iStackLimit = iStackLimit ;
+			this.getPStack().setMaxSize( iStackLimit ) ;
+			this.getRStack().setMaxSize( iStackLimit ) ;
+		}
+		else
+		{
+			System.err.println( "Error, invalid stack limit" ) ;
+		}
+		return ;
+	}
+	public void setLStack( final LoopStack lStack )
+	{
+		this.lStack = lStack ;
+		return ;
+	}
+	/** Sets the call stack, whose maximum size limits how deeply 
+	 * user-defined words can be nested */
+	public void setCStack( final CallStack cStack )
+	{
+		// Only set stack if length greater than 0 
+		if ( cStack.getMaxSize() > 0 )
+		{
+			this.cStack = cStack ;
+		}
+		else
+		{
+			System.err.println( "Error, invalid stack size" ) ;
+		}
+		return ;
+	}
 	public void setDictionary( final Dictionary dict )
 	{
 		this.dict = dict ;
@@ -890,12 +2247,155 @@ public class Interpreter
 		this.console = console ;
 		return ;
 	}
+	/** Sets the number of steps each execution may take, or 0 for no 
+	 * limit. A step is a loop iteration or a call of a user-defined word */
+	public void setFuel( final long lFuel )
+	{
+		// Only set if not negative
+		if ( lFuel >= 0 )
+		{
+			this.lFuel = lFuel ;
+		}
+		else
+		{
+			System.err.println( "Error, invalid execution budget" ) ;
+		}
+		return ;
+	}
+	/** Sets the number of milliseconds each execution may take, 
+	 * or 0 for no time limit */
+	public void setTimeLimit( final long lTimeLimit )
+	{
+		// Only set if not negative
+		if ( lTimeLimit >= 0 )
+		{
+			this.lTimeLimit = lTimeLimit ;
+		}
+		else
+		{
+			System.err.println( "Error, invalid time limit" ) ;
+		}
+		return ;
+	}
+	public void setEngine( final Engine engine )
+	{
+		this.engine = engine ;
+		return ;
+	}
+	/** Sets whether the bytecode engine uses superinstructions */
+	public void setOptimise( final boolean bOptimise )
+	{
+		this.bOptimise = bOptimise ;
+		return ;
+	}
+	/** Sets whether the bytecode engine caches the top of the parameter stack */
+	public void setCacheTop( final boolean bCacheTop )
+	{
+		this.bCacheTop = bCacheTop ;
+		return ;
+	}
+	/** Sets whether words with a verified stack effect are executed with
+	 * the stack checked once, instead of at each step */
+	public void setUnchecked( final boolean bUnchecked )
+	{
+		this.bUnchecked = bUnchecked ;
+		return ;
+	}
+	/** Starts or stops profiling. Starting again keeps the counts and times */
+	public void setProfiling( final boolean bProfiling )
+	{
+		if ( bProfiling == false )
+		{
+			this.profiler = null ;
+		}
+		else if ( this.profiler == null )
+		{
+			this.profiler = new Profiler() ;
+		}
+		return ;
+	}
+	/** Starts sampling the words being executed, from another thread. 
+	 * Does nothing if already sampling
+	 * @param lInterval is the time between samples, in microseconds */
+	public void startSampling( final long lInterval )
+	{
+		if ( this.sampler == null )
+		{
+			this.sampler = new SamplingProfiler( this , lInterval ) ;
+			this.sampler.start() ;
+		}
+		return ;
+	}
+	/** Stops sampling 
+	 * @return the SamplingProfiler holding the samples, or null if not sampling */
+	public SamplingProfiler stopSampling()
+	{
+		final SamplingProfiler ret = this.sampler ;
+
+		if ( ret != null )
+		{
+			ret.stop() ;
+			this.sampler = null ;
+		}
+		return ret ;
+	}
+	/** Sets whether words called often are compiled to JVM code */
+	public void setJit( final boolean bJit )
+	{
+		this.bJit = bJit ;
+		return ;
+	}
+	/** Sets the number of calls of a word before it is compiled to JVM code */
+	public void setJitThreshold( final int iJitThreshold )
+	{
+		if ( iJitThreshold > 0 )
+		{
+			this.iJitThreshold = iJitThreshold ;
+		}
+		else
+		{
+			System.err.println( "Error, invalid JIT threshold" ) ;
+		}
+		return ;
+	}
 
 	// Getters
 	public Dictionary getDictionary() { return this.dict ; }
 	public ParamStack getPStack() { return this.pStack ; }
 	public ParamStack getRStack() { return this.rStack ; }
+	public LoopStack getLStack() { return this.lStack ; }
+	public CallStack getCStack() { return this.cStack ; }
 	public FConsole getConsole() { return this.console ; }
+	public Engine getEngine() { return this.engine ; }
+	public boolean getOptimise() { return this.bOptimise ; }
+	public boolean getCacheTop() { return this.bCacheTop ; }
+	public boolean getUnchecked() { return this.bUnchecked ; }
+	public boolean getJit() { return this.bJit ; }
+	public int getJitThreshold() { return this.iJitThreshold ; }
+	/** @return the profiler, or null if not profiling */
+	public Profiler getProfiler() { return this.profiler ; }
+	/** @return the cache of code already parsed and compiled */
+	public ProgramCache getProgramCache() { return this.programs ; }
+	/** @return the number of times each superinstruction has been executed */
+	public String getFusedCounts()
+	{
+		String szRet = "" ;
+		for ( int i = Bytecode.LITERAL_OP ; i < Bytecode.getCount() ; i ++ )
+		{
+			szRet = szRet + Bytecode.getName( i ) + " " + this.lFused[ i ] + "\n" ;
+		}
+		return szRet ;
+	}
+	public int getStackLimit() { return this.iStackLimit ; }
+	public long getFuel() { return this.lFuel ; }
+	public long getTimeLimit() { return this.lTimeLimit ; }
+	/** @return the number of steps taken by the last or current execution */
+	public long getFuelUsed()
+	{
+		return this.lFuelStart - Math.max( this.lFuelLeft , 0 ) ;
+	}
+	/** @return the nanoseconds taken by the last execution */
+	public long getTimeUsed() { return this.lTimeUsed ; }
 
 	public static void main( final String[] args ) 
 	{
@@ -0,0 +1,817 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Compiles hot user-defined words to JVM code, loaded as hidden classes
+ * extending CompiledWord. Only words with a verified StackEffect can be
+ * compiled, as they use the parameter stack alone. The stack items a word
+ * uses are kept in local variables, and only written back to the stack
+ * when it returns.
+ * Words that print, read input, use variables or call other words are
+ * never compiled, even if a StackEffect is given for them. Compiled code
+ * changes nothing outside of its locals before it returns, so if it stops
+ * part way, such as at a division by zero or when out of steps, the 
+ * interpreter can execute the word again from the start.
+ * This version of the JDK has no class file API, so the class file is
+ * written here. Version 49 class files are written, as they do not
+ * need stack map frames.
+ *
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.Hashtable;
+
+public final class JitCompiler
+{
+	/** Default number of calls of a word before it is compiled */
+	public static final int DEFAULT_THRESHOLD = 1000 ;
+
+	// JVM opcodes used
+	private static final int ICONST_M1 = 0x02 ;
+	private static final int ICONST_0 = 0x03 ;
+	private static final int ICONST_1 = 0x04 ;
+	private static final int BIPUSH = 0x10 ;
+	private static final int SIPUSH = 0x11 ;
+	private static final int LDC_W = 0x13 ;
+	private static final int ILOAD = 0x15 ;
+	private static final int ALOAD = 0x19 ;
+	private static final int IALOAD = 0x2e ;
+	private static final int ISTORE = 0x36 ;
+	private static final int IASTORE = 0x4f ;
+	private static final int DUP = 0x59 ;
+	private static final int IADD = 0x60 ;
+	private static final int ISUB = 0x64 ;
+	private static final int IMUL = 0x68 ;
+	private static final int IDIV = 0x6c ;
+	private static final int IREM = 0x70 ;
+	private static final int INEG = 0x74 ;
+	private static final int IINC = 0x84 ;
+	private static final int IFEQ = 0x99 ;
+	private static final int IFNE = 0x9a ;
+	private static final int IFGE = 0x9c ;
+	private static final int IFLE = 0x9e ;
+	private static final int IF_ICMPEQ = 0x9f ;
+	private static final int IF_ICMPNE = 0xa0 ;
+	private static final int IF_ICMPGE = 0xa2 ;
+	private static final int IF_ICMPGT = 0xa3 ;
+	private static final int IF_ICMPLE = 0xa4 ;
+	private static final int GOTO = 0xa7 ;
+	private static final int IRETURN = 0xac ;
+	private static final int RETURN = 0xb1 ;
+	private static final int INVOKEVIRTUAL = 0xb6 ;
+	private static final int INVOKESPECIAL = 0xb7 ;
+
+	// Local variables of the run method
+	private static final int LOCAL_INTERPRETER = 1 ;
+	private static final int LOCAL_STACK = 2 ;
+	private static final int LOCAL_SIZE = 3 ;
+	private static final int LOCAL_ITEMS = 4 ; // First local holding a stack item
+
+	// Target of a branch to the end of the method, which returns -1
+	private static final int BAIL = -1 ;
+
+	// The stack effect of the word, with the Forth bytecode
+	private final StackEffect effect ;
+	private final int[] iCode ;
+	// Lowest and highest stack heights, relative to the height when
+	// the word is called
+	private final int iMin ;
+	private final int iMax ;
+	// Most loops running at once
+	private final int iMaxLoops ;
+
+	// The JVM code of the run method
+	private byte[] jvm = new byte[ 256 ] ;
+	private int iLength = 0 ;
+	// Offset of the JVM code of each instruction, -1 if not written yet
+	private final int[] iOffsets ;
+	// Branches to instructions not written yet: offset of the branch,
+	// and the instruction branched to
+	private int[] iFixFrom = new int[ 16 ] ;
+	private int[] iFixTo = new int[ 16 ] ;
+	private int iFixes = 0 ;
+	// Whether an instruction with effects outside the stack was found
+	private boolean bUnsupported = false ;
+
+	// The constant pool of the class file
+	private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream() ;
+	private final DataOutputStream pool = new DataOutputStream( this.poolBytes ) ;
+	private final Hashtable<String , Integer> poolIndexes = new Hashtable<>() ;
+	private int iPoolCount = 0 ;
+
+	/** Constructor. Use compile */
+	private JitCompiler( final StackEffect effect )
+	{
+		this.effect = effect ;
+		this.iCode = effect.getCode() ;
+		this.iMin = - effect.getDepth() ;
+		this.iMax = effect.getGrowth() ;
+		this.iMaxLoops = effect.getMaxLoops() ;
+		this.iOffsets = new int[ this.iCode.length ] ;
+		Arrays.fill( this.iOffsets , -1 ) ;
+		return ;
+	}
+
+	/**
+	 * Compiles a word to JVM code
+	 * @param effect is the stack effect of the word, inferred from its
+	 * Bytecode without superinstructions
+	 * @return the compiled word, or null if it cannot be compiled
+	 */
+	public static CompiledWord compile( final StackEffect effect )
+	{
+		final JitCompiler jit = new JitCompiler( effect ) ;
+		final MethodHandles.Lookup lookup ;
+		final byte[] classFile ;
+		CompiledWord ret = null ;
+
+		// Each item, and the locals of each loop, needs a local variable.
+		// Kept below 256 so that the short forms of instructions can be used
+		if ( jit.getLocals() < 256 )
+		{
+			classFile = jit.generate() ;
+			if ( classFile != null )
+			{
+				try
+				{
+					// Not kept alive by the class loader, so is unloaded
+					// when the CompiledWord is no longer used
+					lookup = MethodHandles.lookup().defineHiddenClass( classFile , true ) ;
+					ret = ( CompiledWord ) lookup.findConstructor( lookup.lookupClass()
+							, MethodType.methodType( void.class ) ).invoke() ;
+					ret.setRequirements( effect.getDepth() , effect.getGrowth()
+							, effect.getPrimitives() ) ;
+				}
+				catch ( final Throwable e )
+				{
+					// Should never happen. Left to the interpreter
+					ret = null ;
+				}
+			}
+		}
+		return ret ;
+	}
+
+	// Local variables
+	/** @return the local holding the item at height h */
+	private int getItem( final int h )
+	{
+		return JitCompiler.LOCAL_ITEMS + h - this.iMin ;
+	}
+	/** @return the local holding the counter of a loop, followed by its
+	 * start, end and whether to leave
+	 * @param iLoop is 0 for the outermost loop */
+	private int getLoop( final int iLoop )
+	{
+		return JitCompiler.LOCAL_ITEMS + this.iMax - this.iMin + iLoop * 4 ;
+	}
+	/** @return the number of local variables */
+	private int getLocals()
+	{
+		return this.getLoop( this.iMaxLoops ) ;
+	}
+
+	/** Writes the class file
+	 * @return the class file, or null if the code is too long, or has
+	 * effects outside the stack */
+	private byte[] generate()
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream() ;
+		final DataOutputStream out = new DataOutputStream( bytes ) ;
+		final int iThis = this.addClass( "ForthJit" ) ;
+		final int iSuper = this.addClass( "CompiledWord" ) ;
+		final int iSuperInit = this.addMethod( "CompiledWord" , "<init>" , "()V" ) ;
+		final int iCodeName = this.addUtf8( "Code" ) ;
+		final int iInitName = this.addUtf8( "<init>" ) ;
+		final int iInitType = this.addUtf8( "()V" ) ;
+		final int iRunName = this.addUtf8( "run" ) ;
+		final int iRunType = this.addUtf8( "(LInterpreter;[II)I" ) ;
+
+		this.generateRun() ;
+		// Branches must be within 32k
+		if ( this.iLength > Short.MAX_VALUE || this.bUnsupported )
+		{
+			return null ;
+		}
+		this.fixBranches() ;
+
+		try
+		{
+			out.writeInt( 0xCAFEBABE ) ;
+			out.writeShort( 0 ) ; // Minor version
+			out.writeShort( 49 ) ; // Major version
+			out.writeShort( this.iPoolCount + 1 ) ;
+			this.pool.flush() ;
+			this.poolBytes.writeTo( out ) ;
+			out.writeShort( 0x0030 ) ; // Final, super
+			out.writeShort( iThis ) ;
+			out.writeShort( iSuper ) ;
+			out.writeShort( 0 ) ; // Interfaces
+			out.writeShort( 0 ) ; // Fields
+			out.writeShort( 2 ) ; // Methods
+			// Constructor, calling the constructor of CompiledWord
+			out.writeShort( 0x0001 ) ; // Public
+			out.writeShort( iInitName ) ;
+			out.writeShort( iInitType ) ;
+			out.writeShort( 1 ) ; // Attributes
+			this.writeCode( out , iCodeName , 1 , 1 , new byte[] {
+					0x2a , ( byte ) JitCompiler.INVOKESPECIAL
+					, ( byte ) ( iSuperInit >> 8 ) , ( byte ) iSuperInit
+					, ( byte ) JitCompiler.RETURN } , 5 ) ;
+			// Run method
+			out.writeShort( 0x0001 ) ; // Public
+			out.writeShort( iRunName ) ;
+			out.writeShort( iRunType ) ;
+			out.writeShort( 1 ) ; // Attributes
+			this.writeCode( out , iCodeName , 8 , this.getLocals() , this.jvm , this.iLength ) ;
+			out.writeShort( 0 ) ; // Attributes
+			out.flush() ;
+		}
+		catch ( final IOException e )
+		{
+			// Never thrown when writing to a ByteArrayOutputStream
+			return null ;
+		}
+		return bytes.toByteArray() ;
+	}
+	/** Writes a Code attribute */
+	private void writeCode( final DataOutputStream out , final int iCodeName
+			, final int iMaxStack , final int iMaxLocals , final byte[] code
+			, final int iCodeLength ) throws IOException
+	{
+		out.writeShort( iCodeName ) ;
+		out.writeInt( 12 + iCodeLength ) ;
+		out.writeShort( iMaxStack ) ;
+		out.writeShort( iMaxLocals ) ;
+		out.writeInt( iCodeLength ) ;
+		out.write( code , 0 , iCodeLength ) ;
+		out.writeShort( 0 ) ; // Exception table
+		out.writeShort( 0 ) ; // Attributes
+		return ;
+	}
+
+	/** Writes the JVM code of the run method */
+	private void generateRun()
+	{
+		final int iBail ;
+
+		// Load the items the word takes into locals
+		for ( int h = this.iMin ; h < 0 ; h ++ )
+		{
+			this.emit( JitCompiler.ALOAD , JitCompiler.LOCAL_STACK ) ;
+			this.emit( JitCompiler.ILOAD , JitCompiler.LOCAL_SIZE ) ;
+			this.emitInt( h ) ;
+			this.emit( JitCompiler.IADD ) ;
+			this.emit( JitCompiler.IALOAD ) ;
+			this.emit( JitCompiler.ISTORE , this.getItem( h ) ) ;
+		}
+		// The other locals must be set before they can be read
+		for ( int i = this.getItem( 0 ) ; i < this.getLocals() ; i ++ )
+		{
+			this.emit( JitCompiler.ICONST_0 ) ;
+			this.emit( JitCompiler.ISTORE , i ) ;
+		}
+
+		// Each instruction reached
+		for ( int iPC = 0 ; iPC < this.iCode.length ;
+				iPC = iPC + 1 + Bytecode.getOperands( this.iCode[ iPC ] ) )
+		{
+			if ( this.effect.getHeight( iPC ) != StackEffect.UNREACHED )
+			{
+				this.iOffsets[ iPC ] = this.iLength ;
+				this.generate( iPC , this.effect.getHeight( iPC ) , this.effect.getLoops( iPC ) ) ;
+			}
+		}
+
+		// Return -1 without changing the stack
+		iBail = this.iLength ;
+		this.emit( JitCompiler.ICONST_M1 ) ;
+		this.emit( JitCompiler.IRETURN ) ;
+		for ( int i = 0 ; i < this.iFixes ; i ++ )
+		{
+			if ( this.iFixTo[i] == JitCompiler.BAIL )
+			{
+				this.iFixTo[i] = iBail ;
+			}
+			else
+			{
+				this.iFixTo[i] = this.iOffsets[ this.iFixTo[i] ] ;
+			}
+		}
+		return ;
+	}
+	/** Writes the JVM code of an instruction
+	 * @param h is the stack height before the instruction
+	 * @param l is the number of loops running */
+	private void generate( final int iPC , final int h , final int l )
+	{
+		final int iOperand = iPC + 1 < this.iCode.length ? this.iCode[ iPC + 1 ] : 0 ;
+		int iAt ;
+		int iRun ;
+
+		switch ( this.iCode[ iPC ] )
+		{
+		case Bytecode.HALT :
+			// Write items back to the stack, and return its size
+			for ( int i = this.iMin ; i < h ; i ++ )
+			{
+				this.emit( JitCompiler.ALOAD , JitCompiler.LOCAL_STACK ) ;
+				this.emit( JitCompiler.ILOAD , JitCompiler.LOCAL_SIZE ) ;
+				this.emitInt( i ) ;
+				this.emit( JitCompiler.IADD ) ;
+				this.emit( JitCompiler.ILOAD , this.getItem( i ) ) ;
+				this.emit( JitCompiler.IASTORE ) ;
+			}
+			this.emit( JitCompiler.ILOAD , JitCompiler.LOCAL_SIZE ) ;
+			this.emitInt( h ) ;
+			this.emit( JitCompiler.IADD ) ;
+			this.emit( JitCompiler.IRETURN ) ;
+			break ;
+		case Bytecode.LITERAL :
+			this.emitInt( iOperand ) ;
+			this.store( h ) ;
+			break ;
+		case Bytecode.PRIMITIVE :
+			this.generatePrimitive( iOperand , h , l ) ;
+			break ;
+		case Bytecode.BRANCH_ZERO :
+			// 0 is false, so jump to else clause
+			this.load( h - 1 ) ;
+			this.jump( JitCompiler.IFEQ , iOperand ) ;
+			break ;
+		case Bytecode.JUMP :
+			this.jump( JitCompiler.GOTO , iOperand ) ;
+			break ;
+		case Bytecode.DO :
+			// Start is on top of end
+			this.load( h - 1 ) ;
+			this.emit( JitCompiler.DUP ) ;
+			this.emit( JitCompiler.ISTORE , this.getLoop( l ) + 1 ) ;
+			this.emit( JitCompiler.ISTORE , this.getLoop( l ) ) ;
+			this.load( h - 2 ) ;
+			this.emit( JitCompiler.ISTORE , this.getLoop( l ) + 2 ) ;
+			this.emit( JitCompiler.ICONST_0 ) ;
+			this.emit( JitCompiler.ISTORE , this.getLoop( l ) + 3 ) ;
+			break ;
+		case Bytecode.LOOP_TEST :
+			// Same test as LoopStack.checkRunning
+			this.emit( JitCompiler.ILOAD , this.getLoop( l - 1 ) + 3 ) ;
+			this.jump( JitCompiler.IFNE , iOperand ) ;
+			// Counter < end and end > start
+			this.emit( JitCompiler.ILOAD , this.getLoop( l - 1 ) ) ;
+			this.emit( JitCompiler.ILOAD , this.getLoop( l - 1 ) + 2 ) ;
+			iAt = this.branch( JitCompiler.IF_ICMPGE ) ;
+			this.emit( JitCompiler.ILOAD , this.getLoop( l - 1 ) + 2 ) ;
+			this.emit( JitCompiler.ILOAD , this.getLoop( l - 1 ) + 1 ) ;
+			iRun = this.branch( JitCompiler.IF_ICMPGT ) ;
+			// Or counter > end and end < start
+			this.land( iAt ) ;
+			this.emit( JitCompiler.ILOAD , this.getLoop( l - 1 ) ) ;
+			this.emit( JitCompiler.ILOAD , this.getLoop( l - 1 ) + 2 ) ;
+			this.jump( JitCompiler.IF_ICMPLE , iOperand ) ;
+			this.emit( JitCompiler.ILOAD , this.getLoop( l - 1 ) + 2 ) ;
+			this.emit( JitCompiler.ILOAD , this.getLoop( l - 1 ) + 1 ) ;
+			this.jump( JitCompiler.IF_ICMPGE , iOperand ) ;
+			// Each iteration is a step
+			this.land( iRun ) ;
+			this.emit( JitCompiler.ALOAD , JitCompiler.LOCAL_INTERPRETER ) ;
+			this.emit( JitCompiler.INVOKEVIRTUAL ) ;
+			this.emitShort( this.addMethod( "Interpreter" , "useIteration" , "()V" ) ) ;
+			break ;
+		case Bytecode.LOOP :
+			this.emit( JitCompiler.IINC , this.getLoop( l - 1 ) ) ;
+			this.emit( 1 ) ;
+			this.jump( JitCompiler.GOTO , iOperand ) ;
+			break ;
+		case Bytecode.PLUS_LOOP :
+			this.emit( JitCompiler.ILOAD , this.getLoop( l - 1 ) ) ;
+			this.load( h - 1 ) ;
+			this.emit( JitCompiler.IADD ) ;
+			this.emit( JitCompiler.ISTORE , this.getLoop( l - 1 ) ) ;
+			this.jump( JitCompiler.GOTO , iOperand ) ;
+			break ;
+		default :
+			// Printing, variables and calls are left to the interpreter
+			this.bUnsupported = true ;
+			break ;
+		}
+		return ;
+	}
+	/** Writes the JVM code of a primitive
+	 * @param h is the stack height before the primitive
+	 * @param l is the number of loops running */
+	private void generatePrimitive( final int iPrimitive , final int h , final int l )
+	{
+		int iAt ;
+		int iEnd ;
+
+		switch ( iPrimitive )
+		{
+		case Primitive.ADD :
+			this.binary( h , JitCompiler.IADD ) ;
+			break ;
+		case Primitive.SUBTRACT :
+			this.binary( h , JitCompiler.ISUB ) ;
+			break ;
+		case Primitive.MULTIPLY :
+			this.binary( h , JitCompiler.IMUL ) ;
+			break ;
+		case Primitive.DIVIDE :
+			// Division by zero is left to the interpreter to report
+			this.load( h - 1 ) ;
+			this.jump( JitCompiler.IFEQ , JitCompiler.BAIL ) ;
+			this.binary( h , JitCompiler.IDIV ) ;
+			break ;
+		case Primitive.MOD :
+			this.load( h - 1 ) ;
+			this.jump( JitCompiler.IFEQ , JitCompiler.BAIL ) ;
+			this.binary( h , JitCompiler.IREM ) ;
+			break ;
+		case Primitive.LESSER :
+			this.compare( h , JitCompiler.IF_ICMPGE ) ;
+			break ;
+		case Primitive.GREATER :
+			this.compare( h , JitCompiler.IF_ICMPLE ) ;
+			break ;
+		case Primitive.EQUAL :
+			this.compare( h , JitCompiler.IF_ICMPNE ) ;
+			break ;
+		case Primitive.NOT_EQUAL :
+			this.compare( h , JitCompiler.IF_ICMPEQ ) ;
+			break ;
+		case Primitive.DROP :
+		case Primitive.TWO_DROP :
+			// Only the height changes
+			break ;
+		case Primitive.SWAP :
+			this.load( h - 1 ) ;
+			this.load( h - 2 ) ;
+			this.store( h - 1 ) ;
+			this.store( h - 2 ) ;
+			break ;
+		case Primitive.DUP :
+			this.load( h - 1 ) ;
+			this.store( h ) ;
+			break ;
+		case Primitive.OVER :
+			this.load( h - 2 ) ;
+			this.store( h ) ;
+			break ;
+		case Primitive.ROT :
+			this.load( h - 3 ) ;
+			this.load( h - 2 ) ;
+			this.store( h - 3 ) ;
+			this.load( h - 1 ) ;
+			this.store( h - 2 ) ;
+			this.store( h - 1 ) ;
+			break ;
+		case Primitive.I :
+			this.emit( JitCompiler.ILOAD , this.getLoop( l - 1 ) ) ;
+			this.store( h ) ;
+			break ;
+		case Primitive.J :
+			this.emit( JitCompiler.ILOAD , this.getLoop( l - 2 ) ) ;
+			this.store( h ) ;
+			break ;
+		case Primitive.LEAVE :
+			this.emit( JitCompiler.ICONST_1 ) ;
+			this.emit( JitCompiler.ISTORE , this.getLoop( l - 1 ) + 3 ) ;
+			break ;
+		case Primitive.TRUE :
+			this.emit( JitCompiler.ICONST_M1 ) ;
+			this.store( h ) ;
+			break ;
+		case Primitive.FALSE :
+			this.emit( JitCompiler.ICONST_0 ) ;
+			this.store( h ) ;
+			break ;
+		case Primitive.ZERO_EQUAL :
+		case Primitive.INVERT :
+			this.load( h - 1 ) ;
+			this.flag( JitCompiler.IFNE ) ;
+			this.store( h - 1 ) ;
+			break ;
+		case Primitive.ZERO_LESSER :
+			this.load( h - 1 ) ;
+			this.flag( JitCompiler.IFGE ) ;
+			this.store( h - 1 ) ;
+			break ;
+		case Primitive.ZERO_GREATER :
+			this.load( h - 1 ) ;
+			this.flag( JitCompiler.IFLE ) ;
+			this.store( h - 1 ) ;
+			break ;
+		case Primitive.ONE_PLUS :
+			this.emit( JitCompiler.IINC , this.getItem( h - 1 ) ) ;
+			this.emit( 1 ) ;
+			break ;
+		case Primitive.TWO_DUP :
+			this.load( h - 2 ) ;
+			this.store( h ) ;
+			this.load( h - 1 ) ;
+			this.store( h + 1 ) ;
+			break ;
+		case Primitive.OR :
+			this.load( h - 2 ) ;
+			this.load( h - 1 ) ;
+			this.emit( JitCompiler.IADD ) ;
+			this.flag( JitCompiler.IFEQ ) ;
+			this.store( h - 2 ) ;
+			break ;
+		case Primitive.AND :
+			this.load( h - 2 ) ;
+			this.load( h - 1 ) ;
+			this.emit( JitCompiler.IMUL ) ;
+			this.flag( JitCompiler.IFEQ ) ;
+			this.store( h - 2 ) ;
+			break ;
+		case Primitive.DIVIDE_MOD :
+			this.load( h - 1 ) ;
+			this.jump( JitCompiler.IFEQ , JitCompiler.BAIL ) ;
+			this.load( h - 2 ) ;
+			this.load( h - 1 ) ;
+			this.emit( JitCompiler.IREM ) ;
+			this.load( h - 2 ) ;
+			this.load( h - 1 ) ;
+			this.emit( JitCompiler.IDIV ) ;
+			this.store( h - 1 ) ;
+			this.store( h - 2 ) ;
+			break ;
+		case Primitive.ABS :
+			this.load( h - 1 ) ;
+			iAt = this.branch( JitCompiler.IFGE ) ;
+			this.load( h - 1 ) ;
+			this.emit( JitCompiler.INEG ) ;
+			this.store( h - 1 ) ;
+			this.land( iAt ) ;
+			break ;
+		case Primitive.NEGATE :
+			this.load( h - 1 ) ;
+			this.emit( JitCompiler.INEG ) ;
+			this.store( h - 1 ) ;
+			break ;
+		case Primitive.MIN :
+		case Primitive.MAX :
+			this.load( h - 2 ) ;
+			this.load( h - 1 ) ;
+			iAt = this.branch( iPrimitive == Primitive.MIN
+					? JitCompiler.IF_ICMPGE : JitCompiler.IF_ICMPLE ) ;
+			this.load( h - 2 ) ;
+			iEnd = this.branch( JitCompiler.GOTO ) ;
+			this.land( iAt ) ;
+			this.load( h - 1 ) ;
+			this.land( iEnd ) ;
+			this.store( h - 2 ) ;
+			break ;
+		default :
+			// Input and output are left to the interpreter
+			this.bUnsupported = true ;
+			break ;
+		}
+		return ;
+	}
+	/** Writes code for n1 op n2, the result replacing n1 */
+	private void binary( final int h , final int iOpcode )
+	{
+		this.load( h - 2 ) ;
+		this.load( h - 1 ) ;
+		this.emit( iOpcode ) ;
+		this.store( h - 2 ) ;
+		return ;
+	}
+	/** Writes code for a comparison of n1 and n2, the flag replacing n1
+	 * @param iFalse is the branch taken if the comparison is false */
+	private void compare( final int h , final int iFalse )
+	{
+		this.load( h - 2 ) ;
+		this.load( h - 1 ) ;
+		this.flag( iFalse ) ;
+		this.store( h - 2 ) ;
+		return ;
+	}
+	/** Writes code pushing -1, or 0 if the branch iFalse is taken */
+	private void flag( final int iFalse )
+	{
+		final int iAt = this.branch( iFalse ) ;
+		final int iEnd ;
+
+		this.emit( JitCompiler.ICONST_M1 ) ;
+		iEnd = this.branch( JitCompiler.GOTO ) ;
+		this.land( iAt ) ;
+		this.emit( JitCompiler.ICONST_0 ) ;
+		this.land( iEnd ) ;
+		return ;
+	}
+
+	// Writing JVM code
+	/** Loads the item at height h */
+	private void load( final int h )
+	{
+		this.emit( JitCompiler.ILOAD , this.getItem( h ) ) ;
+		return ;
+	}
+	/** Stores into the item at height h */
+	private void store( final int h )
+	{
+		this.emit( JitCompiler.ISTORE , this.getItem( h ) ) ;
+		return ;
+	}
+	/** Writes code pushing an int constant */
+	private void emitInt( final int n )
+	{
+		if ( n >= -1 && n <= 5 )
+		{
+			this.emit( JitCompiler.ICONST_0 + n ) ;
+		}
+		else if ( n >= Byte.MIN_VALUE && n <= Byte.MAX_VALUE )
+		{
+			this.emit( JitCompiler.BIPUSH , n ) ;
+		}
+		else if ( n >= Short.MIN_VALUE && n <= Short.MAX_VALUE )
+		{
+			this.emit( JitCompiler.SIPUSH ) ;
+			this.emitShort( n ) ;
+		}
+		else
+		{
+			this.emit( JitCompiler.LDC_W ) ;
+			this.emitShort( this.addInteger( n ) ) ;
+		}
+		return ;
+	}
+	/** Writes a branch to an instruction of the Forth code, or to BAIL */
+	private void jump( final int iOpcode , final int iTarget )
+	{
+		final int iFrom = this.iLength ;
+
+		this.emit( iOpcode ) ;
+		// Backwards branches can be written now
+		if ( iTarget != JitCompiler.BAIL && this.iOffsets[ iTarget ] >= 0 )
+		{
+			this.emitShort( this.iOffsets[ iTarget ] - iFrom ) ;
+		}
+		else
+		{
+			if ( this.iFixes == this.iFixFrom.length )
+			{
+				this.iFixFrom = Arrays.copyOf( this.iFixFrom , this.iFixes * 2 ) ;
+				this.iFixTo = Arrays.copyOf( this.iFixTo , this.iFixes * 2 ) ;
+			}
+			this.iFixFrom[ this.iFixes ] = iFrom ;
+			this.iFixTo[ this.iFixes ] = iTarget ;
+			++ this.iFixes ;
+			this.emitShort( 0 ) ;
+		}
+		return ;
+	}
+	/** Writes a forward branch within the code of an instruction
+	 * @return the offset of the branch, to be passed to land */
+	private int branch( final int iOpcode )
+	{
+		final int iRet = this.iLength ;
+		this.emit( iOpcode ) ;
+		this.emitShort( 0 ) ;
+		return iRet ;
+	}
+	/** Makes a branch from branch go to the next code written */
+	private void land( final int iFrom )
+	{
+		this.jvm[ iFrom + 1 ] = ( byte ) ( ( this.iLength - iFrom ) >> 8 ) ;
+		this.jvm[ iFrom + 2 ] = ( byte ) ( this.iLength - iFrom ) ;
+		return ;
+	}
+	/** Fills in branches to instructions written after them */
+	private void fixBranches()
+	{
+		for ( int i = 0 ; i < this.iFixes ; i ++ )
+		{
+			this.jvm[ this.iFixFrom[i] + 1 ] = ( byte ) ( ( this.iFixTo[i] - this.iFixFrom[i] ) >> 8 ) ;
+			this.jvm[ this.iFixFrom[i] + 2 ] = ( byte ) ( this.iFixTo[i] - this.iFixFrom[i] ) ;
+		}
+		return ;
+	}
+	/** Adds bytes to the code */
+	private void emit( final int... iBytes )
+	{
+		// Double the size of the array if full
+		if ( this.iLength + iBytes.length > this.jvm.length )
+		{
+			this.jvm = Arrays.copyOf( this.jvm , this.jvm.length * 2 ) ;
+		}
+		for ( int i = 0 ; i < iBytes.length ; i ++ )
+		{
+			this.jvm[ this.iLength ++ ] = ( byte ) iBytes[i] ;
+		}
+		return ;
+	}
+	/** Adds two bytes to the code */
+	private void emitShort( final int n )
+	{
+		this.emit( n >> 8 , n ) ;
+		return ;
+	}
+
+	// Constant pool
+	/** @return the index of a constant, adding it if not in the pool */
+	private int addConstant( final String szKey , final int iTag , final Object... content )
+	{
+		Integer index = this.poolIndexes.get( szKey ) ;
+
+		if ( index == null )
+		{
+			try
+			{
+				this.pool.writeByte( iTag ) ;
+				for ( int i = 0 ; i < content.length ; i ++ )
+				{
+					if ( content[i] instanceof String )
+					{
+						this.pool.writeUTF( ( String ) content[i] ) ;
+					}
+					else if ( iTag == 3 )
+					{
+						this.pool.writeInt( ( Integer ) content[i] ) ;
+					}
+					else
+					{
+						this.pool.writeShort( ( Integer ) content[i] ) ;
+					}
+				}
+			}
+			catch ( final IOException e )
+			{
+				// Never thrown when writing to a ByteArrayOutputStream
+			}
+			index = ++ this.iPoolCount ;
+			this.poolIndexes.put( szKey , index ) ;
+		}
+		return index ;
+	}
+	private int addUtf8( final String sz )
+	{
+		return this.addConstant( "Utf8 " + sz , 1 , sz ) ;
+	}
+	private int addInteger( final int n )
+	{
+		return this.addConstant( "Integer " + n , 3 , n ) ;
+	}
+	private int addClass( final String szName )
+	{
+		return this.addConstant( "Class " + szName , 7 , this.addUtf8( szName ) ) ;
+	}
+	private int addMethod( final String szClass , final String szName , final String szType )
+	{
+		final int iClass = this.addClass( szClass ) ;
+		final int iNameAndType = this.addConstant( "NameAndType " + szName + " " + szType
+				, 12 , this.addUtf8( szName ) , this.addUtf8( szType ) ) ;
+		return this.addConstant( "Method " + szClass + " " + szName + " " + szType
+				, 10 , iClass , iNameAndType ) ;
+	}
+
+	// For testing
+	public static void main( final String[] args )
+	{
+		final String[] tests = {
+				"dup *"
+				, "over over < if drop else swap drop then"
+				, "0 swap 0 do i + loop"
+				, "10 /mod 100000 * + negate abs 1+"
+				, "3 0 do 3 0 do i j * drop loop loop 7"
+				, ". "
+		} ;
+		final Interpreter intp = new Interpreter() ;
+		final int[] iStack = new int[ 16 ] ;
+		AST ast ;
+		StackEffect effect ;
+		CompiledWord compiled ;
+		int iSize ;
+
+		for ( int i = 0 ; i < tests.length ; i ++ )
+		{
+			ast = new Parser().parse( tests[i] ) ;
+			effect = StackEffect.infer( new BytecodeCompiler().compile( ast ) , ast ) ;
+			compiled = effect == null ? null : JitCompiler.compile( effect ) ;
+			System.out.print( tests[i] + " : " ) ;
+			if ( compiled == null )
+			{
+				System.out.println( "not compiled" ) ;
+			}
+			else
+			{
+				iStack[0] = 7 ;
+				iStack[1] = 5 ;
+				iSize = compiled.run( intp , iStack , 2 ) ;
+				System.out.print( "takes " + compiled.getDepth() + ", from 7 5 gives" ) ;
+				for ( int j = 0 ; j < iSize ; j ++ )
+				{
+					System.out.print( " " + iStack[j] ) ;
+				}
+				System.out.println() ;
+			}
+		}
+	}
+}
@@ -18,6 +18,9 @@ public class Lexer
 		// This is a LinkedList as it is easy to add items to the end
 		LinkedList<Token> tokens = new LinkedList<Token>() ; 
 		boolean bSet = false ; 
+		final ForthEvents.Lex event = new ForthEvents.Lex() ;
+
+		event.begin() ;
 
 		// For each character
 		for ( int i = 0 ; i < szInput.length() - 1 ; i ++ )
@@ -256,6 +259,12 @@ public class Lexer
 			}
 		}
 
+		if ( event.shouldCommit() )
+		{
+			event.inputLength = szInput.length() ;
+			event.tokenCount = tokens.getLength() ;
+			event.commit() ;
+		}
 		return tokens ;
 	}
 	/**
@@ -5,12 +5,23 @@
  *
  */
 
-public class LinkedList <T> // T is the Object type of each Item
+import java.util.Iterator ;
+import java.util.NoSuchElementException ;
+
+public class LinkedList <T> implements Iterable<T> // T is the Object type of each Item
 {
 	/** The first item in the list */
 	private Item root ;
+	/** The last item in the list, so that adding and popping do not
+	 * have to walk the list */
+	private Item tail ;
 	/** The length of the list */
 	private int iLength ;
+	/** The item last found by peek( i ), and its index, so that looking
+	 * at neighbouring indexes in turn does not walk from the root. 
+	 * Null if not set */
+	private Item cursor ;
+	private int iCursor ;
 
 	/** Constructor */ 
 	public LinkedList()
@@ -46,6 +57,7 @@ public class LinkedList <T> // T is the Object type of each Item
 	{
 		private T content = null ;
 		private Item next = null ;
+		private Item previous = null ;
 
 		public Item( final T content )
 		{
@@ -55,6 +67,7 @@ public class LinkedList <T> // T is the Object type of each Item
 		public Item add( final T content )
 		{
 			this.setNext( new Item( content ) ) ;
+			this.getNext().previous = this ;
 			return this.getNext() ;
 		}
 
@@ -78,11 +91,38 @@ public class LinkedList <T> // T is the Object type of each Item
 	{
 		return this.getLast() ;
 	}
-	/** Returns the item at index i */
+	/** Returns the item at index i. Walks from the root, the tail or
+	 * the item last peeked at, whichever is nearest */
 	public T peek( int i )
 	{
 		Item ret = this.getRoot() ; 
+		int iAt = 0 ;
 
+		// Out of range is left to fail as walking from the root
+		if ( i > 0 && i < this.getLength() )
+		{
+			if ( this.getLength() - 1 - i < i )
+			{
+				ret = this.tail ;
+				iAt = this.getLength() - 1 ;
+			}
+			if ( this.cursor != null && Math.abs( i - this.iCursor ) < Math.abs( i - iAt ) )
+			{
+				ret = this.cursor ;
+				iAt = this.iCursor ;
+			}
+			for ( ; iAt > i ; iAt -- )
+			{
+				ret = ret.previous ;
+			}
+			for ( ; iAt < i ; iAt ++ )
+			{
+				ret = ret.getNext() ;
+			}
+			this.cursor = ret ;
+			this.iCursor = i ;
+			return ret.getContent() ;
+		}
 		for ( ; i > 0 ; i -- )
 		{
 			ret = ret.getNext() ; 
@@ -98,13 +138,12 @@ public class LinkedList <T> // T is the Object type of each Item
 	/** Returns the last item of the list */
 	private Item getLastItem()
 	{
-		Item last = this.getRoot() ;
-
-		while ( last.getNext() != null )
+		// No items
+		if ( this.tail == null )
 		{
-			last = last.getNext(); 
+			throw new NullPointerException( "LinkedList is empty" ) ;
 		}
-		return last ; 
+		return this.tail ; 
 	}
 
 	/** Adds objects to the list */
@@ -127,13 +166,17 @@ public class LinkedList <T> // T is the Object type of each Item
 		//  to this list
 		if ( content != null )
 		{
-			// For each item in the passed list
-			for ( int i = 0 ; i < content.getLength() ; i ++ )
+			// For each item in the passed list, up to its current length,
+			// as the list may be appended to itself
+			final int iCount = content.getLength() ;
+			Item current = content.getRoot() ;
+			for ( int i = 0 ; i < iCount ; i ++ )
 			{
 				// Add to this array
-				this.insert( this , content.peek( i ) ) ;
+				this.insert( this , current.getContent() ) ;
 				// Increment length
 				this.incLength() ; 
+				current = current.getNext() ;
 			}
 		}
 		return ;
@@ -155,7 +198,7 @@ public class LinkedList <T> // T is the Object type of each Item
 		// If there is root, insert item at end of list
 		else
 		{
-			list.getLastItem().add( content ) ;
+			list.tail = list.tail.add( content ) ;
 		}
 		return ;
 	}
@@ -167,27 +210,43 @@ public class LinkedList <T> // T is the Object type of each Item
 
 		// Decrement length
 		this.decLength() ; 
-		// Trim list to length
-		this.trim() ; 
+		// Unlink the last item
+		this.tail = item.previous ;
+		if ( this.tail == null )
+		{
+			this.root = null ;
+		}
+		else
+		{
+			this.tail.setNext( null ) ;
+			item.previous = null ;
+		}
+		if ( this.cursor == item )
+		{
+			this.cursor = null ;
+		}
 
 		return item.getContent() ;
 	}
-	/** Trims to length, by replacing current root with new root of a new list */
+	/** Trims to length, removing any items after it */
 	public void trim()
 	{
-		final LinkedList<T> newList = new LinkedList<T>() ;
 		Item current = this.getRoot() ;
 
+		if ( this.getLength() <= 0 )
+		{
+			this.setRoot( null ) ;
+			return ;
+		}
 		// Until length is reached
-		for ( int i = 0 ; i < this.getLength() ; i++ )
+		for ( int i = 1 ; i < this.getLength() ; i++ )
 		{
-			// Add to new list
-			newList.add( current.getContent() ) ;
 			// Next item
 			current = current.getNext() ; 
 		}
-		// Set node
-		this.setRoot( newList.getRoot() ) ; 
+		current.setNext( null ) ;
+		this.tail = current ;
+		this.cursor = null ;
 		return ;
 	}
 
@@ -219,6 +278,31 @@ public class LinkedList <T> // T is the Object type of each Item
 		}
 		return ret ;
 	}
+	/** @return an Iterator over the items, from the root */
+	@Override
+	public Iterator<T> iterator()
+	{
+		return new Iterator<T>()
+		{
+			private Item next = LinkedList.this.getRoot() ;
+
+			@Override
+			public boolean hasNext() { return this.next != null ; }
+			@Override
+			public T next()
+			{
+				final T ret ;
+
+				if ( this.next == null )
+				{
+					throw new NoSuchElementException() ;
+				}
+				ret = this.next.getContent() ;
+				this.next = this.next.getNext() ;
+				return ret ;
+			}
+		} ;
+	}
 	/** Displays items */
 	public void display()
 	{
@@ -245,10 +329,16 @@ public class LinkedList <T> // T is the Object type of each Item
 	public int getLength() { return this.iLength ; }
 	/** @return the root Item */
 	public Item getRoot() { return this.root ; }
-	/** Sets the root Item to the passed parameter */
+	/** Sets the root Item to the passed parameter, finding the tail from it */
 	public void setRoot( final Item item ) 
 	{
 		this.root = item ; 
+		this.tail = item ;
+		this.cursor = null ;
+		while ( this.tail != null && this.tail.getNext() != null )
+		{
+			this.tail = this.tail.getNext() ;
+		}
 		return ;
 	}
 
@@ -0,0 +1,114 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Loop control stack. Holds the counter, start and end of each DO loop
+ * being executed, innermost loop on top, so that i, j and leave can
+ * read and write the counters directly.
+ *
+ */
+
+import java.util.Arrays;
+
+public class LoopStack
+{
+	private int iSize = 0 ;
+	// One element of each array per loop
+	private int[] iCounters = null ;
+	private int[] iStarts = null ;
+	private int[] iEnds = null ;
+	private boolean[] bLeave = null ;
+
+	/** Constructor. Creates an empty loop stack */
+	public LoopStack()
+	{
+		this.reset() ;
+		return ;
+	}
+	/** Empties the stack */
+	public void reset()
+	{
+		this.iCounters = new int[ 16 ] ;
+		this.iStarts = new int[ 16 ] ;
+		this.iEnds = new int[ 16 ] ;
+		this.bLeave = new boolean[ 16 ] ;
+		this.iSize = 0 ;
+		return ;
+	}
+
+	/** Starts a new loop, with its counter set to the start
+	 * @param iStart : the first value of the counter
+	 * @param iEnd : the value of the counter at which the loop ends */
+	public void push( final int iStart , final int iEnd )
+	{
+		// Double the size of the arrays if full
+		if ( this.iSize == this.iCounters.length )
+		{
+			this.iCounters = Arrays.copyOf( this.iCounters , this.iSize * 2 ) ;
+			this.iStarts = Arrays.copyOf( this.iStarts , this.iSize * 2 ) ;
+			this.iEnds = Arrays.copyOf( this.iEnds , this.iSize * 2 ) ;
+			this.bLeave = Arrays.copyOf( this.bLeave , this.iSize * 2 ) ;
+		}
+		this.iCounters[ this.iSize ] = iStart ;
+		this.iStarts[ this.iSize ] = iStart ;
+		this.iEnds[ this.iSize ] = iEnd ;
+		this.bLeave[ this.iSize ] = false ;
+		++ this.iSize ;
+		return ;
+	}
+	/** Ends the innermost loop */
+	public void pop()
+	{
+		-- this.iSize ;
+		return ;
+	}
+
+	/** @return true if the innermost loop should run again */
+	public boolean checkRunning()
+	{
+		final int i = this.iSize - 1 ;
+		final int iCounter = this.iCounters[ i ] ;
+
+		// Changed from design in order to allow negative value for +loop
+		// Runs while counter has not reached end point
+		return this.bLeave[ i ] == false
+				&& ( ( iCounter < this.iEnds[ i ] && this.iEnds[ i ] > this.iStarts[ i ] )
+						|| ( iCounter > this.iEnds[ i ] && this.iEnds[ i ] < this.iStarts[ i ] ) ) ;
+	}
+	/** Adds to the counter of the innermost loop */
+	public void increment( final int iStep )
+	{
+		this.iCounters[ this.iSize - 1 ] = this.iCounters[ this.iSize - 1 ] + iStep ;
+		return ;
+	}
+	/** Makes the innermost loop end when it next reaches 'loop' */
+	public void leave()
+	{
+		if ( this.iSize > 0 )
+		{
+			this.bLeave[ this.iSize - 1 ] = true ;
+		}
+		return ;
+	}
+
+	/** @param iDepth : 0 for the innermost loop, 1 for the loop outside it, ...
+	 * @return the counter of the loop, or 0 if there is no such loop */
+	public int getCounter( final int iDepth )
+	{
+		int iRet = 0 ;
+		if ( iDepth < this.iSize )
+		{
+			iRet = this.iCounters[ this.iSize - 1 - iDepth ] ;
+		}
+		return iRet ;
+	}
+
+	/** Ends all loops above a number of loops. Used when an error stops
+	 * loops from ending normally */
+	public void setSize( final int iSize )
+	{
+		this.iSize = Math.min( this.iSize , iSize ) ;
+		return ;
+	}
+	/** @return number of loops being executed */
+	public int getSize() { return this.iSize ; }
+}
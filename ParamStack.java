@@ -2,18 +2,32 @@
  * @version 5 2022-11-01
  * 
  * Parameter Stack
+ * The array holding the items starts small, and doubles in size when 
+ * full, up to the max size. Items that do not fit are not pushed, 
+ * and the stack is marked as overflowed until reset
  *
  */
 
+import java.util.Arrays;
+
 public class ParamStack 
 {
 	private boolean bFull = false ;
 	private boolean bEmpty = true ;
-	private int iMaxSize = 128 ;
+	private int iMaxSize = ParamStack.DEFAULT_MAX_SIZE ;
 	private int iSize = 0 ; 
 	private int[] iItems = null ; 
+	// Largest number of items the stack has held
+	private int iHighWater = 0 ;
+	// Whether items were not pushed as the stack was full
+	private boolean bOverflowed = false ;
+	/** Size of the array holding the items when the stack is created */
+	public static final int INITIAL_CAPACITY = 16 ;
+	/** Max size of a stack if not given. The array only grows to it 
+	 * if the items are pushed, so a large max size costs nothing */
+	public static final int DEFAULT_MAX_SIZE = 1 << 20 ;
 
-	/** Constructor. Creates an integer stack of max size 128 */
+	/** Constructor. Creates an integer stack of the default max size */
 	public ParamStack()
 	{
 		this.reset() ; 
@@ -30,8 +44,10 @@ public class ParamStack
 	/** Empties stack and sets max size */
 	public void reset()
 	{
-		this.iItems = new int[ this.iMaxSize ] ; 
+		this.iItems = new int[ Math.min( ParamStack.INITIAL_CAPACITY , this.iMaxSize ) ] ; 
 		this.iSize = 0 ;
+		this.iHighWater = 0 ;
+		this.bOverflowed = false ;
 		this.bFull = false ; 
 		this.bEmpty = true ; 
 		return ; 
@@ -47,13 +63,61 @@ public class ParamStack
 		if ( bFull == true ) 
 		{
 			bRC = true ; 
+			this.bOverflowed = true ;
 			System.err.println( "Error, stack full " ) ;
 		}
 		else
 		{
+			this.ensureCapacity( this.iSize + 1 ) ;
 			this.iItems[ this.iSize ] = iValue ;
 			// Move to next item
 			++ this.iSize ; 
+			this.iHighWater = Math.max( this.iHighWater , this.iSize ) ;
+		}
+		this.checkFullOrEmpty() ;
+		return bRC ;
+	}
+	/** Adds items to the top of the stack, the last item on top. 
+	 * Adds none if they do not all fit
+	 * @return false if successful, true otherwise */
+	public boolean pushAll( final int[] iValues )
+	{
+		boolean bRC = false ;
+
+		// Must stay below full, as with push
+		if ( this.iSize + iValues.length > this.iMaxSize - 1 
+				&& iValues.length > 0 ) 
+		{
+			bRC = true ; 
+			this.bOverflowed = true ;
+			System.err.println( "Error, stack full " ) ;
+		}
+		else
+		{
+			this.ensureCapacity( this.iSize + iValues.length ) ;
+			System.arraycopy( iValues , 0 , this.iItems , this.iSize , iValues.length ) ;
+			this.iSize = this.iSize + iValues.length ;
+			this.iHighWater = Math.max( this.iHighWater , this.iSize ) ;
+		}
+		this.checkFullOrEmpty() ;
+		return bRC ;
+	}
+	/** Removes items from the top of the stack into an array, the top 
+	 * item last. Removes none if there are not enough
+	 * @return false if successful, true otherwise */
+	public boolean popInto( final int[] iValues )
+	{
+		boolean bRC = false ;
+
+		if ( this.iSize < iValues.length ) 
+		{
+			bRC = true ; 
+			System.err.println( "Error, stack empty " ) ;
+		}
+		else
+		{
+			this.iSize = this.iSize - iValues.length ;
+			System.arraycopy( this.iItems , this.iSize , iValues , 0 , iValues.length ) ;
 		}
 		this.checkFullOrEmpty() ;
 		return bRC ;
@@ -125,26 +189,49 @@ public class ParamStack
 	 * some values may be lost. */
 	public void setMaxSize( final int iMaxSize )
 	{
-		final int[] iTemp ;
-		this.iMaxSize = iMaxSize ;
-		iTemp = new int[ iMaxSize ] ;
-		
 		// If making smaller, print warning and move cursor 
-		if ( this.iItems.length > iMaxSize )
+		if ( this.iMaxSize > iMaxSize )
 		{
 			System.err.println( "Warning: attempting to downsize stack."
 					+ " Some values may be lost." ) ;
-			// Move cursor to last element
-			this.iSize = iMaxSize - 1 ; 
+			// Move cursor to last element, if past it
+			this.iSize = Math.min( this.iSize , iMaxSize - 1 ) ; 
 		}
-		// Copy array into new size array
-		for ( int i = 0 ; i < iMaxSize && i < this.iItems.length ; i ++ )
+		this.iMaxSize = iMaxSize ;
+		// Copy array into new size array, holding at least the items
+		this.iItems = Arrays.copyOf( this.iItems , Math.min( 
+				Math.max( this.iItems.length , this.iSize ) , iMaxSize ) ) ; 
+		this.checkFullOrEmpty() ;
+		return ; 
+	}
+	/** Makes the array holding the items hold at least iCapacity items, 
+	 * doubling its size until it does, up to the max size */
+	public void ensureCapacity( final int iCapacity )
+	{
+		int iLength = Math.max( this.iItems.length , 1 ) ;
+
+		if ( iCapacity > this.iItems.length )
 		{
-			iTemp[i] = this.iItems[i] ; 
+			while ( iLength < iCapacity )
+			{
+				iLength = iLength * 2 ;
+			}
+			this.iItems = Arrays.copyOf( this.iItems , Math.min( iLength , this.iMaxSize ) ) ;
 		}
-		this.iItems = iTemp ; 
-		return ; 
+		return ;
 	}
+	/** Sets the number of items, after code has changed the items
+	 * returned by getItems directly */
+	public void setSize( final int iSize )
+	{
+		this.iSize = iSize ;
+		this.iHighWater = Math.max( this.iHighWater , this.iSize ) ;
+		this.checkFullOrEmpty() ;
+		return ;
+	}
+	/** @return the array holding the items, bottom item first. Changes
+	 * when the stack grows, or the max size is changed */
+	public int[] getItems() { return this.iItems ; }
 
 	/** @return true if full, false otherwise */
 	public boolean getFull() { return this.bFull ; }
@@ -154,6 +241,21 @@ public class ParamStack
 	public int getSize() { return this.iSize ; } 
 	/** @return max size */
 	public int getMaxSize() { return this.iMaxSize ; } 
+	/** @return the number of items the array can hold before growing */
+	public int getCapacity() { return this.iItems.length ; }
+	/** @return the largest number of items held since created or reset. 
+	 * Items pushed and popped by code running on the array directly are
+	 * not seen */
+	public int getHighWater() { return this.iHighWater ; }
+	/** @return true if items were not pushed as the stack was full, 
+	 * since created, reset or cleared */
+	public boolean getOverflowed() { return this.bOverflowed ; }
+	/** Clears the overflowed flag, keeping the items */
+	public void clearOverflowed()
+	{
+		this.bOverflowed = false ;
+		return ;
+	}
 
 	public static void main( final String[] args ) 
 	{
@@ -170,5 +272,27 @@ public class ParamStack
 		System.out.println( stack.push( 20 ) ) ;
 		System.out.println( stack.push( 30 ) ) ;
 		System.out.println( stack.push( 40 ) ) ;		
+
+		// Growing up to the max size, in bulk
+		final ParamStack big = new ParamStack( 1000 ) ;
+		final int[] iValues = new int[ 100 ] ;
+		for ( int i = 0 ; i < iValues.length ; i ++ )
+		{
+			iValues[ i ] = i ;
+		}
+		System.out.println( big.getCapacity() ) ;
+		System.out.println( big.pushAll( iValues ) ) ;
+		System.out.println( big.getCapacity() + " " + big.peek() ) ;
+		for ( int i = 0 ; i < 9 ; i ++ )
+		{
+			big.pushAll( iValues ) ;
+		}
+		System.out.println( big.pushAll( iValues ) ) ;
+		System.out.println( big.getCapacity() + " " + big.getSize() ) ;
+		System.out.println( big.popInto( new int[ 950 ] ) ) ;
+		System.out.println( big.popInto( iValues ) ) ;
+		System.out.println( big.getHighWater() + " " + big.getSize() ) ;
+		System.out.println( stack.getOverflowed() + " " + big.getOverflowed() ) ;
+		System.out.println( new ParamStack().getMaxSize() ) ;
 	}
 }
@@ -3,10 +3,51 @@
  * 
  */
 
-import java.util.Stack ;
+import java.util.Arrays ;
+import java.util.EmptyStackException ;
 
-public class Parser 
+public class Parser
 {
+	// Not yet looked up, in the caches below
+	private static final int UNRESOLVED = Integer.MIN_VALUE ;
+
+	// The tokens being parsed, and the index of the next
+	private TokenBuffer tokens ;
+	private int iNext ;
+	// Primitive and Symbol ids of each name in the tokens, so that
+	// each name is only looked up once
+	private int[] iPrimitives ;
+	private int[] iSymbols ;
+	// The ids of variable names, of the Dictionary the code is run with
+	private final Symbol symbols ;
+
+	/** Constructor, for code not run with a Dictionary. Variable names 
+	 * are given ids in a new table */
+	public Parser()
+	{
+		this( new Symbol() ) ;
+		return ;
+	}
+	/** Constructor
+	 * @param symbols is the table of variable names of the Dictionary
+	 * the code is to be run with */
+	public Parser( final Symbol symbols )
+	{
+		this.symbols = symbols ;
+		return ;
+	}
+
+	/**
+	 * Tokenises and parses Forth source code
+	 * @param szCode is the Forth code to parse
+	 * @return an AST
+	 */
+	public AST parse( final String szCode )
+	{
+		// Tokenise in one pass, treating tab/newline characters as spaces
+		return this.parse( new FastLexer().lex( szCode ) ) ;
+	}
+
 	/**
 	 * Generate a parse tree
 	 * @param tokens the lexed result of Lexer.tokenise
@@ -14,46 +55,115 @@ public class Parser
 	 */
 	public AST parse( final LinkedList<Token> tokens ) 
 	{
-		final AST ret = new AST() ;
-		final Stack<Token> tokenStack = new Stack<Token>() ; 
-		int i ;
+		return this.parse( new TokenBuffer( tokens ) ) ;
+	}
 
-		// For each token, in reverse order. 
-		// Reverse order is required so that the stack is the correct order.
-		for ( i = tokens.getLength() - 1  ; i >= 0 ; i -- )
-		{
-			// Get current token and push to stack
-			tokenStack.push( ( Token ) tokens.peek( i ) ) ;
-		}
+	/**
+	 * Generate a parse tree
+	 * @param tokens the lexed result of FastLexer.lex
+	 * @return an AST
+	 */
+	public AST parse( final TokenBuffer tokens ) 
+	{
+		final AST ret = new AST( this.symbols ) ;
+		final ForthEvents.Parse event = new ForthEvents.Parse() ;
+
+		event.begin() ;
+		// Tokens are read in order by index
+		this.tokens = tokens ;
+		this.iNext = 0 ;
+		this.iPrimitives = new int[ tokens.getNameCount() ] ;
+		this.iSymbols = new int[ tokens.getNameCount() ] ;
+		Arrays.fill( this.iPrimitives , Parser.UNRESOLVED ) ;
+		Arrays.fill( this.iSymbols , Parser.UNRESOLVED ) ;
 
 		// Parse and add to AST
-		ret.setRoot( new AST.Expression( this.parse( 
-				tokenStack , Token.Type.END ) ) ) ;
+		ret.setRoot( new AST.Expression( this.parse( Token.Type.END ) ) ) ;
 
+		if ( event.shouldCommit() )
+		{
+			event.tokenCount = tokens.getCount() ;
+			event.nodeCount = ret.getSize() ;
+			event.commit() ;
+		}
 		return ret ; 
 	}
 
+	/** @return true if all the tokens have been read */
+	private boolean isEmpty()
+	{
+		return this.iNext >= this.tokens.getCount() ;
+	}
+	/** @return the type of the next token, as Stack.peek */
+	private Token.Type peekType()
+	{
+		if ( this.isEmpty() )
+		{
+			throw new EmptyStackException() ;
+		}
+		return this.tokens.getType( this.iNext ) ;
+	}
+	/** @return a Token for the next token, moving past it, as Stack.pop */
+	private Token pop()
+	{
+		if ( this.isEmpty() )
+		{
+			throw new EmptyStackException() ;
+		}
+		return this.tokens.getToken( this.iNext ++ ) ;
+	}
+	/** @return the Primitive id of a WORD token */
+	private int lookupPrimitive( final int i )
+	{
+		final int iName = this.tokens.getName( i ) ;
+
+		if ( iName == TokenBuffer.NO_NAME )
+		{
+			return Primitive.lookup( this.tokens.getString( i ) ) ;
+		}
+		if ( this.iPrimitives[ iName ] == Parser.UNRESOLVED )
+		{
+			this.iPrimitives[ iName ] = Primitive.lookup( this.tokens.getNameString( iName ) ) ;
+		}
+		return this.iPrimitives[ iName ] ;
+	}
+	/** @return the Symbol id of a VARIABLE_NAME token */
+	private int lookupSymbol( final int i )
+	{
+		final int iName = this.tokens.getName( i ) ;
+
+		if ( iName == TokenBuffer.NO_NAME )
+		{
+			return this.symbols.intern( this.tokens.getString( i ) ) ;
+		}
+		if ( this.iSymbols[ iName ] == Parser.UNRESOLVED )
+		{
+			this.iSymbols[ iName ] = this.symbols.intern( this.tokens.getNameString( iName ) ) ;
+		}
+		return this.iSymbols[ iName ] ;
+	}
+
 	/** 
-	 * Parses a stack of tokens 
-	 * @param tokenStack
+	 * Parses tokens from the next, up to a delimiter
 	 * @param end
-	 * @return the LinkedList of Expressions
+	 * @return the list of Expressions
 	 */
-	private LinkedList<AST.Expression> parse( final Stack<Token> tokenStack 
-			, final Token.Type end )
+	private IndexedList<AST.Expression> parse( final Token.Type end )
 	{
 		// To be returned
-		final LinkedList<AST.Expression> ret = new LinkedList<AST.Expression>() ;
+		final IndexedList<AST.Expression> ret = new IndexedList<AST.Expression>() ;
 		// For use in nests 
-		AST.Expression toAdd = null ;
+		IndexedList<AST.Expression> toAdd = null ;
+		// For tokens resolved when parsed
+		Token token ;
 
 		// While there are still tokens left in the stack, 
 		// and while the end token is not reached
-		while ( ( tokenStack.isEmpty() == false ) 
-				&& ( ( tokenStack.peek().getType() == end ) == false ) )
+		while ( ( this.isEmpty() == false ) 
+				&& ( ( this.peekType() == end ) == false ) )
 		{
 			// Check type of Token
-			switch ( tokenStack.peek().getType() )
+			switch ( this.peekType() )
 			{
 			case COMMENT_START :
 				// Comments are placed into the tree
@@ -61,11 +171,11 @@ public class Parser
 				ret.add(
 						new AST.Expression( 
 								// Add (
-								new AST.Expression( tokenStack.pop() )
+								new AST.Expression( this.pop() )
 								// Add contents
-								, new AST.Expression( tokenStack.pop() )
+								, new AST.Expression( this.pop() )
 								// Add )
-								, new AST.Expression( tokenStack.pop() ) ) 
+								, new AST.Expression( this.pop() ) ) 
 						) ;
 				break ;
 
@@ -74,11 +184,11 @@ public class Parser
 				ret.add(
 						new AST.Expression( 
 								// Add ."
-								new AST.Expression( tokenStack.pop() )
+								new AST.Expression( this.pop() )
 								// Add contents
-								, new AST.Expression( tokenStack.pop() )
+								, new AST.Expression( this.pop() )
 								// Add "
-								, new AST.Expression( tokenStack.pop() ) ) 
+								, new AST.Expression( this.pop() ) ) 
 						) ;
 				break ;
 
@@ -87,13 +197,13 @@ public class Parser
 				ret.add( 
 						new AST.Expression( 
 								// Add :
-								new AST.Expression( tokenStack.pop() )
+								new AST.Expression( this.pop() )
 								// Add identifier
-								, new AST.Expression( tokenStack.pop() )
+								, new AST.Expression( this.pop() )
 								// Add definition
-								, new AST.Expression( tokenStack.pop() )
+								, new AST.Expression( this.pop() )
 								// Add ;
-								, new AST.Expression( tokenStack.pop() ) ) 
+								, new AST.Expression( this.pop() ) ) 
 						) ; 	
 				break ; 
 
@@ -101,50 +211,49 @@ public class Parser
 				ret.add(
 						new AST.Expression(
 								// Add 'DO'
-								new AST.Expression( tokenStack.pop() ) 
+								new AST.Expression( this.pop() ) 
 								// Add contents; recurse
 								, new AST.Expression(
-										this.parse( tokenStack , Token.Type.LOOP ) ) 
+										this.parse( Token.Type.LOOP ) ) 
 								// Add 'LOOP'
-								, new AST.Expression( tokenStack.pop() ) ) ) ;
+								, new AST.Expression( this.pop() ) ) ) ;
 				break ;
 
 			case IF : 
-				// Create new LinkedList to hold if statement
-				toAdd = new AST.Expression( new LinkedList<AST.Expression>() ) ;
+				// Create new list to hold if statement
+				toAdd = new IndexedList<AST.Expression>() ;
 				// Add to list
-				toAdd.getChildren().add( 
+				toAdd.add( 
 						// Add 'IF'
-						new AST.Expression( tokenStack.pop() ) 
+						new AST.Expression( this.pop() ) 
 						// Add if clause; recurse
 						, new AST.Expression( 
-								this.parse( tokenStack , Token.Type.ELSE ) ) ) ;
+								this.parse( Token.Type.ELSE ) ) ) ;
 
 				// If ELSE found
-				if ( tokenStack.peek().getType() == Token.Type.ELSE )
+				if ( this.peekType() == Token.Type.ELSE )
 				{
 					// Add 'else'
-					toAdd.getChildren().add(
+					toAdd.add(
 							// Add 'else'
-							new AST.Expression( tokenStack.pop() )
+							new AST.Expression( this.pop() )
 							// Add else clause
 							, new AST.Expression( 
-									this.parse( tokenStack , Token.Type.THEN ) ) ) ;
+									this.parse( Token.Type.THEN ) ) ) ;
 				}
 				// If ELSE not found
 				else
 				{
-					toAdd.getChildren().add( 
+					toAdd.add( 
 							// Add 'else'
 							new AST.Expression( 
 									new Token ( "else" , Token.Type.ELSE ) ) 
 							// Add empty else clause
-							, new AST.Expression( 
-									new LinkedList<AST.Expression>() ) ) ;
+							, new AST.Expression() ) ;
 				}
 				// Add 'THEN'
-				toAdd.getChildren().add( new AST.Expression( tokenStack.pop() ) ) ;
-				ret.add( toAdd ) ;
+				toAdd.add( new AST.Expression( this.pop() ) ) ;
+				ret.add( new AST.Expression( toAdd ) ) ;
 				break ; 
 
 			case THEN : 
@@ -162,15 +271,43 @@ public class Parser
 				// These should never be evaluated on their own without being 
 				// passed as @param end, so any time they appear is unexpected
 				throw new RuntimeException( "Error: unexpected >>>" 
-						+ tokenStack.peek().getString() + "<<<" ) ;
+						+ this.tokens.getString( this.iNext ) + "<<<" ) ;
+			case WORD :
+				// Resolve built-in words now, so that they do not 
+				// have to be looked up by name when executed
+				token = this.pop() ;
+				token.setPrimitive( this.lookupPrimitive( this.iNext - 1 ) ) ;
+				ret.add( new AST.Expression( token ) ) ; 
+				break ;
+			case LITERAL :
+				// Parse literals now, so that they do not have to 
+				// be parsed every time they are executed
+				token = this.pop() ;
+				try
+				{
+					token.setValue( Integer.parseInt( token.getString() ) ) ;
+				}
+				catch ( final NumberFormatException e )
+				{
+					// Too large for an int. Left to report the error when executed
+				}
+				ret.add( new AST.Expression( token ) ) ; 
+				break ;
+			case VARIABLE_NAME :
+				// Resolve variable names now, so that the variable's 
+				// slot can be used directly when executed
+				token = this.pop() ;
+				token.setSymbol( this.lookupSymbol( this.iNext - 1 ) ) ;
+				ret.add( new AST.Expression( token ) ) ; 
+				break ;
 			default :
 				// Anything else is added as a single expression
-				ret.add( new AST.Expression( tokenStack.pop() ) ) ; 
+				ret.add( new AST.Expression( this.pop() ) ) ; 
 				break ; 
 			}
 		}
 		// If at end without finding delimiter (@param end), throw error 
-		if ( tokenStack.isEmpty() )
+		if ( this.isEmpty() )
 		{
 			throw new RuntimeException( "Error: expected but did not find >>>" + end + "<<<" ) ; 
 		} 
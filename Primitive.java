@@ -0,0 +1,220 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * The registry of built-in words that are executed by the Interpreter
+ * itself. Each is given an integer id, so that a word can be resolved
+ * once when it is parsed, instead of its name being compared every
+ * time it is executed.
+ *
+ */
+
+import java.util.Hashtable;
+
+public final class Primitive
+{
+	/** Id for a word that is not a primitive */
+	public static final int NONE = -1 ;
+
+	// Ids of the primitives. These are indexes into NAMES
+	public static final int ADD = 0 ;
+	public static final int SUBTRACT = 1 ;
+	public static final int MULTIPLY = 2 ;
+	public static final int DIVIDE = 3 ;
+	public static final int PRINT_TOP = 4 ;
+	public static final int PRINT_NUM_RJ = 5 ;
+	public static final int CR = 6 ;
+	public static final int WORDS = 7 ;
+	public static final int ABORT = 8 ;
+	public static final int LEAVE = 9 ;
+	public static final int DROP = 10 ;
+	public static final int SWAP = 11 ;
+	public static final int DUP = 12 ;
+	public static final int OVER = 13 ;
+	public static final int ROT = 14 ;
+	public static final int TO_R = 15 ;
+	public static final int R_FROM = 16 ;
+	public static final int R_FETCH = 17 ;
+	public static final int LESSER = 18 ;
+	public static final int GREATER = 19 ;
+	public static final int EQUAL = 20 ;
+	public static final int NOT_EQUAL = 21 ;
+	public static final int MOD = 22 ;
+	public static final int PRINT_STACK = 23 ;
+	public static final int KEY = 24 ;
+	public static final int EMIT = 25 ;
+	public static final int ACCEPT = 26 ;
+	public static final int I = 27 ;
+	public static final int J = 28 ;
+	public static final int PROFILE = 29 ;
+	public static final int START_SAMPLING = 30 ;
+	public static final int STOP_SAMPLING = 31 ;
+	public static final int BUDGET = 32 ;
+	// Predefined words. These were defined in Forth, and their Forth 
+	// definitions are kept in SOURCES
+	public static final int TRUE = 33 ;
+	public static final int FALSE = 34 ;
+	public static final int ZERO_EQUAL = 35 ;
+	public static final int ZERO_LESSER = 36 ;
+	public static final int ZERO_GREATER = 37 ;
+	public static final int ONE_PLUS = 38 ;
+	public static final int TWO_DUP = 39 ;
+	public static final int TWO_DROP = 40 ;
+	public static final int INVERT = 41 ;
+	public static final int OR = 42 ;
+	public static final int AND = 43 ;
+	public static final int SPACES = 44 ;
+	public static final int DIVIDE_MOD = 45 ;
+	public static final int ABS = 46 ;
+	public static final int NEGATE = 47 ;
+	public static final int MIN = 48 ;
+	public static final int MAX = 49 ;
+	public static final int MULTIPLY_DIVIDE = 50 ;
+
+	/** Names of the primitives, in lower case, indexed by id */
+	private static final String[] NAMES = {
+			"+" , "-" , "*" , "/" , "." , "u.r" , "cr" , "words" , "abort"
+			, "leave" , "drop" , "swap" , "dup" , "over" , "rot" , ">r" , "r>"
+			, "r@" , "<" , ">" , "=" , "<>" , "mod" , ".s" , "key" , "emit"
+			, "accept" , "i" , "j" , ".profile" , "start-sampling" , "stop-sampling" , "budget"
+			, "true" , "false" , "0=" , "0<" , "0>" , "1+" , "2dup" , "2drop" , "invert"
+			, "or" , "and" , "spaces" , "/mod"
+			, "abs" , "negate" , "min" , "max" , "*/"
+	} ;
+	/** Forth definitions of the predefined words, indexed by id - TRUE */
+	private static final String[] SOURCES = {
+			"-1" // True is -1
+			, "0" // False is 0
+			, "0 =" 
+			, "0 <" 
+			, "0 >" 
+			, "1 +" 
+			, "over over" 
+			, "drop drop" 
+			, "0 =" 
+			, "+ if -1 else 0 then" // Boolean OR 
+			, "* if -1 else 0 then" // Boolean AND
+			, "0 do 32 emit loop" // Prints spaces 
+			, "over over mod swap rot swap /" 
+			, "dup 0 < if -1 * then" 
+			, "-1 *" 
+			, "over over < if drop else swap drop then" 
+			, "over over > if drop else swap drop then" 
+			, ">r * r> /" 
+	} ;
+	/** Ids of the primitives, indexed by name */
+	private static final Hashtable<String , Integer> IDS = new Hashtable<>() ;
+
+	static
+	{
+		for ( int i = 0 ; i < Primitive.NAMES.length ; i ++ )
+		{
+			Primitive.IDS.put( Primitive.NAMES[i] , i ) ;
+		}
+	}
+
+	/** Not to be instantiated */
+	private Primitive() {}
+
+	/**
+	 * Finds the id of a primitive
+	 * @param szName is the name of the word, in any case
+	 * @return the id, or NONE if the word is not a primitive
+	 */
+	public static int lookup( final String szName )
+	{
+		final Integer id ;
+		int iRet = Primitive.NONE ;
+
+		if ( szName != null )
+		{
+			id = Primitive.IDS.get( szName.trim().toLowerCase() ) ;
+			if ( id != null )
+			{
+				iRet = id ;
+			}
+		}
+		return iRet ;
+	}
+
+	/** @return the name of the primitive with the given id */
+	public static String getName( final int iPrimitive )
+	{
+		return Primitive.NAMES[ iPrimitive ] ;
+	}
+	/** @return the Forth definition of a predefined word, 
+	 * or null if the primitive is not a predefined word */
+	public static String getSource( final int iPrimitive )
+	{
+		String szRet = null ;
+		if ( iPrimitive >= Primitive.TRUE )
+		{
+			szRet = Primitive.SOURCES[ iPrimitive - Primitive.TRUE ] ;
+		}
+		return szRet ;
+	}
+	/** @return true if the primitive takes two numbers and returns one,
+	 * so can be worked out by calculate */
+	public static boolean checkBinary( final int iPrimitive )
+	{
+		boolean bRet = false ;
+
+		switch ( iPrimitive )
+		{
+		case Primitive.ADD :
+		case Primitive.SUBTRACT :
+		case Primitive.MULTIPLY :
+		case Primitive.DIVIDE :
+		case Primitive.MOD :
+		case Primitive.LESSER :
+		case Primitive.GREATER :
+		case Primitive.EQUAL :
+		case Primitive.NOT_EQUAL :
+			bRet = true ;
+			break ;
+		}
+		return bRet ;
+	}
+	/** @return the result of an arithmetic or comparison primitive, 
+	 * n1 being under n2 on the stack. n2 must not be 0 for / or mod */
+	public static int calculate( final int iPrimitive , final int n1 , final int n2 )
+	{
+		int iRet = 0 ;
+
+		switch ( iPrimitive )
+		{
+		case Primitive.ADD :
+			iRet = n1 + n2 ;
+			break ;
+		case Primitive.SUBTRACT :
+			iRet = n1 - n2 ;
+			break ;
+		case Primitive.MULTIPLY :
+			iRet = n1 * n2 ;
+			break ;
+		case Primitive.DIVIDE :
+			iRet = n1 / n2 ;
+			break ;
+		case Primitive.MOD :
+			iRet = n1 % n2 ;
+			break ;
+		case Primitive.LESSER :
+			iRet = n1 < n2 ? -1 : 0 ;
+			break ;
+		case Primitive.GREATER :
+			iRet = n1 > n2 ? -1 : 0 ;
+			break ;
+		case Primitive.EQUAL :
+			iRet = n1 == n2 ? -1 : 0 ;
+			break ;
+		case Primitive.NOT_EQUAL :
+			iRet = n1 != n2 ? -1 : 0 ;
+			break ;
+		}
+		return iRet ;
+	}
+	/** @return the number of primitives */
+	public static int getCount()
+	{
+		return Primitive.NAMES.length ;
+	}
+}
@@ -0,0 +1,186 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Profiler of user-defined words. Counts the calls of each word, the time
+ * spent in it including and excluding the words it calls, and the loop
+ * iterations it runs. The Interpreter tells it when words start and end,
+ * by the depth of the call stack, so that words ended by errors are
+ * ended here too.
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class Profiler
+{
+	/** Counts and times of a word */
+	public static final class Entry
+	{
+		private final String szName ;
+		private long lCalls = 0 ;
+		private long lInclusive = 0 ; // Nanoseconds, including called words
+		private long lExclusive = 0 ; // Nanoseconds, excluding called words
+		private long lIterations = 0 ; // Loop iterations in the word itself
+		private int iActive = 0 ; // Number of calls not yet ended
+
+		private Entry( final String szName )
+		{
+			this.szName = szName ;
+			return ;
+		}
+
+		public String getName() { return this.szName ; }
+		public long getCalls() { return this.lCalls ; }
+		public long getInclusive() { return this.lInclusive ; }
+		public long getExclusive() { return this.lExclusive ; }
+		public long getIterations() { return this.lIterations ; }
+	}
+
+	// Entries, indexed by name in lower case
+	private final HashMap<String , Entry> entries = new HashMap<>() ;
+	// One element of each array per word being executed, innermost last
+	private Entry[] frames = new Entry[ 16 ] ;
+	private int[] iDepths = new int[ 16 ] ; // Depth of the call stack
+	private long[] lStarts = new long[ 16 ] ; // Value of System.nanoTime() when started
+	private long[] lCalled = new long[ 16 ] ; // Nanoseconds in called words
+	private long[] lIterations = new long[ 16 ] ; // Loop iterations
+	private int iSize = 0 ;
+
+	/** Clears the counts and times */
+	public void reset()
+	{
+		this.entries.clear() ;
+		this.iSize = 0 ;
+		return ;
+	}
+
+	/** Starts a call of a word
+	 * @param szName : the name of the word
+	 * @param iDepth : the depth of the call stack, including the call */
+	public void enter( final String szName , final int iDepth )
+	{
+		final String szKey = szName == null ? "" : szName.toLowerCase() ;
+		Entry entry = this.entries.get( szKey ) ;
+
+		if ( entry == null )
+		{
+			entry = new Entry( szKey ) ;
+			this.entries.put( szKey , entry ) ;
+		}
+		// Double the size of the arrays if full
+		if ( this.iSize == this.frames.length )
+		{
+			this.frames = Arrays.copyOf( this.frames , this.iSize * 2 ) ;
+			this.iDepths = Arrays.copyOf( this.iDepths , this.iSize * 2 ) ;
+			this.lStarts = Arrays.copyOf( this.lStarts , this.iSize * 2 ) ;
+			this.lCalled = Arrays.copyOf( this.lCalled , this.iSize * 2 ) ;
+			this.lIterations = Arrays.copyOf( this.lIterations , this.iSize * 2 ) ;
+		}
+		++ entry.iActive ;
+		this.frames[ this.iSize ] = entry ;
+		this.iDepths[ this.iSize ] = iDepth ;
+		this.lCalled[ this.iSize ] = 0 ;
+		this.lIterations[ this.iSize ] = 0 ;
+		this.lStarts[ this.iSize ] = System.nanoTime() ;
+		++ this.iSize ;
+		return ;
+	}
+	/** Ends the calls of words deeper than the call stack now is,
+	 * adding their counts and times
+	 * @param iDepth : the depth of the call stack */
+	public void exitTo( final int iDepth )
+	{
+		final long lNow = System.nanoTime() ;
+		long lTime ;
+		Entry entry ;
+
+		while ( this.iSize > 0 && this.iDepths[ this.iSize - 1 ] > iDepth )
+		{
+			-- this.iSize ;
+			entry = this.frames[ this.iSize ] ;
+			lTime = lNow - this.lStarts[ this.iSize ] ;
+			++ entry.lCalls ;
+			entry.lExclusive = entry.lExclusive + lTime - this.lCalled[ this.iSize ] ;
+			entry.lIterations = entry.lIterations + this.lIterations[ this.iSize ] ;
+			// A recursive call's time is already in the outermost call's
+			if ( -- entry.iActive == 0 )
+			{
+				entry.lInclusive = entry.lInclusive + lTime ;
+			}
+			if ( this.iSize > 0 )
+			{
+				this.lCalled[ this.iSize - 1 ] = this.lCalled[ this.iSize - 1 ] + lTime ;
+			}
+			this.frames[ this.iSize ] = null ;
+		}
+		return ;
+	}
+	/** Ends the innermost call without adding its counts and times,
+	 * as it is to be executed again */
+	public void cancel()
+	{
+		if ( this.iSize > 0 )
+		{
+			-- this.iSize ;
+			-- this.frames[ this.iSize ].iActive ;
+			this.frames[ this.iSize ] = null ;
+		}
+		return ;
+	}
+	/** Counts a loop iteration in the innermost word. Iterations outside
+	 * of words are not counted */
+	public void iterate()
+	{
+		if ( this.iSize > 0 )
+		{
+			++ this.lIterations[ this.iSize - 1 ] ;
+		}
+		return ;
+	}
+
+	/** @return the entries of the words called, most exclusive time first */
+	public ArrayList<Entry> getEntries()
+	{
+		final ArrayList<Entry> ret = new ArrayList<>( this.entries.values() ) ;
+
+		ret.sort( ( e1 , e2 ) -> Long.compare( e2.lExclusive , e1.lExclusive ) ) ;
+		return ret ;
+	}
+	/** @return a table of the entries, one word per line, times in microseconds */
+	public String getReport()
+	{
+		final StringBuilder sb = new StringBuilder() ;
+
+		sb.append( String.format( "%-16s %10s %12s %12s %12s%n"
+				, "word" , "calls" , "incl us" , "excl us" , "iterations" ) ) ;
+		for ( final Entry entry : this.getEntries() )
+		{
+			sb.append( String.format( "%-16s %10d %12d %12d %12d%n" , entry.szName
+					, entry.lCalls , entry.lInclusive / 1000 , entry.lExclusive / 1000
+					, entry.lIterations ) ) ;
+		}
+		return sb.toString() ;
+	}
+
+	public static void main( final String[] args ) throws InterruptedException
+	{
+		final Profiler profiler = new Profiler() ;
+		// outer calls inner twice, and inner calls itself
+		profiler.enter( "outer" , 1 ) ;
+		profiler.iterate() ;
+		profiler.enter( "inner" , 2 ) ;
+		Thread.sleep( 2 ) ;
+		profiler.enter( "inner" , 3 ) ;
+		profiler.iterate() ;
+		profiler.iterate() ;
+		Thread.sleep( 2 ) ;
+		profiler.exitTo( 1 ) ;
+		profiler.enter( "INNER" , 2 ) ;
+		profiler.cancel() ;
+		Thread.sleep( 2 ) ;
+		profiler.exitTo( 0 ) ;
+		System.out.print( profiler.getReport() ) ;
+	}
+}
@@ -0,0 +1,195 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Cache of parsed and compiled Forth code, so that code executed again,
+ * such as a repeated console command or a file loaded again, is not
+ * lexed, parsed and compiled again. Code is looked up with its tabs and
+ * newlines replaced by spaces, as the Lexer sees it. When full, the
+ * program used least recently is removed.
+ * Programs stay valid when words and variables are defined. The Lexer tells
+ * variable names from words by the '!', '@' or '?' after them, not by
+ * the Dictionary, and names are looked up when executed, through
+ * CallSites that look again once the Dictionary's generation changes.
+ * Variable names are given ids from the Dictionary's Symbol table when
+ * parsed, so all programs are removed when code is run with another
+ * Dictionary.
+ *
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ProgramCache
+{
+	/** Default number of programs kept */
+	public static final int DEFAULT_CAPACITY = 64 ;
+
+	/** Code parsed, and compiled for each engine when first needed */
+	public static final class Program
+	{
+		private final AST ast ;
+		private Bytecode bytecode = null ;
+		private Closure closure = null ;
+
+		private Program( final AST ast )
+		{
+			this.ast = ast ;
+			return ;
+		}
+
+		public AST getAST() { return this.ast ; }
+		/** Gets the code compiled for the bytecode engine, compiling it
+		 * only if it has not been compiled yet, or was compiled with a
+		 * different setting
+		 * @param bOptimise is true to use superinstructions */
+		public Bytecode getBytecode( final boolean bOptimise )
+		{
+			if ( this.bytecode == null || this.bytecode.isOptimised() != bOptimise )
+			{
+				this.bytecode = new BytecodeCompiler( bOptimise ).compile( this.ast ) ;
+			}
+			return this.bytecode ;
+		}
+		/** Gets the code compiled for the closure engine, compiling it
+		 * only if it has not been compiled yet */
+		public Closure getClosure()
+		{
+			if ( this.closure == null )
+			{
+				this.closure = new ClosureCompiler().compile( this.ast ) ;
+			}
+			return this.closure ;
+		}
+	}
+
+	// Programs by normalised code, least recently used first
+	private final LinkedHashMap<String , Program> programs ;
+	// The table of variable names the programs were parsed with
+	private Symbol symbols = null ;
+	private int iCapacity ;
+	private long lHits = 0 ;
+	private long lMisses = 0 ;
+	private long lEvictions = 0 ;
+
+	/** Constructor
+	 * @param iCapacity : the number of programs kept, 0 to keep none */
+	public ProgramCache( final int iCapacity )
+	{
+		this.iCapacity = Math.max( iCapacity , 0 ) ;
+		// Ordered by access, so that the eldest is the least recently used
+		this.programs = new LinkedHashMap<String , Program>( 16 , 0.75f , true )
+		{
+			@Override
+			protected boolean removeEldestEntry( final Map.Entry<String , Program> eldest )
+			{
+				final boolean bRet = this.size() > ProgramCache.this.iCapacity ;
+
+				if ( bRet )
+				{
+					++ ProgramCache.this.lEvictions ;
+				}
+				return bRet ;
+			}
+		} ;
+		return ;
+	}
+
+	/**
+	 * Gets code parsed, parsing it only if it is not in the cache
+	 * @param szCode is the Forth code
+	 * @param symbols is the table of variable names of the Dictionary 
+	 * the code is run with
+	 * @return the Program. Errors in parsing are thrown, and not kept
+	 */
+	public Program get( final String szCode , final Symbol symbols )
+	{
+		final String szKey = ProgramCache.normalise( szCode ) ;
+		Program ret ;
+
+		// Ids from another table would name other variables
+		if ( symbols != this.symbols )
+		{
+			this.programs.clear() ;
+			this.symbols = symbols ;
+		}
+		ret = this.programs.get( szKey ) ;
+
+		if ( ret != null )
+		{
+			++ this.lHits ;
+		}
+		else
+		{
+			++ this.lMisses ;
+			ret = new Program( new Parser( symbols ).parse( szCode ) ) ;
+			if ( this.iCapacity > 0 )
+			{
+				this.programs.put( szKey , ret ) ;
+			}
+		}
+		return ret ;
+	}
+	/** @return the code as the Lexer sees it, with each tab and newline
+	 * character replaced by two spaces */
+	private static String normalise( final String szCode )
+	{
+		// Most code is one line, so is not copied
+		if ( szCode.indexOf( '\t' ) < 0 && szCode.indexOf( '\n' ) < 0
+				&& szCode.indexOf( '\r' ) < 0 )
+		{
+			return szCode ;
+		}
+		return szCode.replaceAll( "(\t|\n|\r)" , "  " ) ;
+	}
+
+	/** Removes all programs, and clears the counts */
+	public void clear()
+	{
+		this.programs.clear() ;
+		this.lHits = 0 ;
+		this.lMisses = 0 ;
+		this.lEvictions = 0 ;
+		return ;
+	}
+	/** Sets the number of programs kept, removing the least recently
+	 * used if there are more */
+	public void setCapacity( final int iCapacity )
+	{
+		this.iCapacity = Math.max( iCapacity , 0 ) ;
+		while ( this.programs.size() > this.iCapacity )
+		{
+			this.programs.remove( this.programs.keySet().iterator().next() ) ;
+			++ this.lEvictions ;
+		}
+		return ;
+	}
+
+	// Getters
+	public int getCapacity() { return this.iCapacity ; }
+	public int getSize() { return this.programs.size() ; }
+	public long getHits() { return this.lHits ; }
+	public long getMisses() { return this.lMisses ; }
+	public long getEvictions() { return this.lEvictions ; }
+	/** @return the hits, misses and evictions, for display */
+	public String getStats()
+	{
+		return String.format( "programs %d/%d, hits %d, misses %d, evictions %d"
+				, this.getSize() , this.iCapacity , this.lHits , this.lMisses , this.lEvictions ) ;
+	}
+
+	public static void main( final String[] args )
+	{
+		final ProgramCache cache = new ProgramCache( 2 ) ;
+		final Symbol symbols = new Symbol() ;
+
+		cache.get( "1 2 + ." , symbols ) ;
+		cache.get( "1 2 + ." , symbols ) ;
+		cache.get( "1\t2 + ." , symbols ) ;
+		cache.get( ": sq dup * ;" , symbols ) ;
+		cache.get( "3 sq ." , symbols ) ;
+		cache.get( "1 2 + ." , symbols ) ;
+		System.out.println( cache.getStats() ) ;
+		cache.get( "1 2 + ." , new Symbol() ) ;
+		System.out.println( cache.getStats() ) ;
+	}
+}
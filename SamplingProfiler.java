@@ -0,0 +1,162 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Sampling profiler of Forth words. A background thread looks at the
+ * Interpreter's call stack at a fixed interval, without stopping it, and
+ * counts each chain of nested word names seen. The counts are written in
+ * the collapsed-stack format read by flame graph tools, one chain per
+ * line, e.g. "main;inner 12".
+ * Words run as JVM code or unchecked do not use the call stack, so their
+ * samples are counted in the word calling them. Code outside of words is
+ * not sampled.
+ *
+ */
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+public class SamplingProfiler implements Runnable
+{
+	/** Default time between samples, in microseconds */
+	public static final long DEFAULT_INTERVAL = 1000 ;
+
+	private final Interpreter intp ;
+	private final long lInterval ; // Nanoseconds between samples
+	// Number of samples of each chain of word names, separated by ';'
+	private final HashMap<String , Long> samples = new HashMap<>() ;
+	private Thread thread = null ;
+	private volatile boolean bRunning = false ;
+
+	/** Constructor
+	 * @param intp : the Interpreter to sample
+	 * @param lInterval : the time between samples, in microseconds */
+	public SamplingProfiler( final Interpreter intp , final long lInterval )
+	{
+		this.intp = intp ;
+		this.lInterval = Math.max( lInterval , 1 ) * 1000 ;
+		return ;
+	}
+
+	/** Starts sampling in a background thread, if not already sampling */
+	public synchronized void start()
+	{
+		if ( this.thread == null )
+		{
+			this.bRunning = true ;
+			this.thread = new Thread( this , "Forth sampling profiler" ) ;
+			// Does not stop the program from exiting
+			this.thread.setDaemon( true ) ;
+			this.thread.start() ;
+		}
+		return ;
+	}
+	/** Stops sampling, waiting for the background thread to end */
+	public synchronized void stop()
+	{
+		if ( this.thread != null )
+		{
+			this.bRunning = false ;
+			LockSupport.unpark( this.thread ) ;
+			try
+			{
+				this.thread.join() ;
+			}
+			catch ( final InterruptedException e )
+			{
+				Thread.currentThread().interrupt() ;
+			}
+			this.thread = null ;
+		}
+		return ;
+	}
+	/** Takes samples until stopped */
+	@Override
+	public void run()
+	{
+		while ( this.bRunning )
+		{
+			this.sample() ;
+			LockSupport.parkNanos( this.lInterval ) ;
+		}
+		return ;
+	}
+	/** Counts the chain of words the Interpreter is executing, if any */
+	private void sample()
+	{
+		final String[] szNames = this.intp.getCStack().getNames() ;
+		final StringBuilder sb = new StringBuilder() ;
+
+		if ( szNames.length > 0 )
+		{
+			for ( int i = 0 ; i < szNames.length ; i ++ )
+			{
+				if ( i > 0 )
+				{
+					sb.append( ';' ) ;
+				}
+				// Frames are separated by ';' and counts by ' ', so neither
+				// can be in a name
+				sb.append( szNames[i] == null ? "?"
+						: szNames[i].toLowerCase().replace( ';' , ':' ).replace( ' ' , '_' ) ) ;
+			}
+			synchronized ( this.samples )
+			{
+				this.samples.merge( sb.toString() , 1L , Long::sum ) ;
+			}
+		}
+		return ;
+	}
+
+	/** Clears the samples */
+	public void reset()
+	{
+		synchronized ( this.samples )
+		{
+			this.samples.clear() ;
+		}
+		return ;
+	}
+	/** @return the samples in collapsed-stack format */
+	public String getCollapsed()
+	{
+		final StringBuilder sb = new StringBuilder() ;
+
+		synchronized ( this.samples )
+		{
+			for ( final Map.Entry<String , Long> entry : this.samples.entrySet() )
+			{
+				sb.append( entry.getKey() ).append( ' ' ).append( entry.getValue() ).append( '\n' ) ;
+			}
+		}
+		return sb.toString() ;
+	}
+	/** Writes the samples in collapsed-stack format to a file
+	 * @param szPath : the path of the file */
+	public void write( final String szPath ) throws IOException
+	{
+		try ( Writer writer = new FileWriter( szPath ) )
+		{
+			writer.write( this.getCollapsed() ) ;
+		}
+		return ;
+	}
+	/** @return true if sampling */
+	public boolean getRunning() { return this.bRunning ; }
+
+	public static void main( final String[] args )
+	{
+		final Interpreter intp = new Interpreter() ;
+		final SamplingProfiler sampler = new SamplingProfiler( intp , 100 ) ;
+
+		intp.setEngine( Interpreter.Engine.BYTECODE ) ;
+		sampler.start() ;
+		intp.execute( ": inner 0 swap 0 do i + loop ; : outer 0 200 0 do 1000 inner + loop ; "
+				+ ": main 20 0 do outer drop loop ; main" ) ;
+		sampler.stop() ;
+		System.out.print( sampler.getCollapsed() ) ;
+	}
+}
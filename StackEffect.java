@@ -0,0 +1,402 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * The stack effect of a user-defined word, inferred from its Bytecode.
+ * Follows each branch to find the height of the parameter stack before
+ * each instruction, relative to its height when the word is called, so
+ * that how many items the word takes, and how many more it may push, is
+ * known before the word is executed. Only words that use the parameter
+ * stack alone can be verified: numbers, arithmetic, comparisons, stack
+ * words, IF/ELSE/THEN and DO/LOOP using their own loops.
+ *
+ */
+
+import java.util.Arrays;
+
+public final class StackEffect
+{
+	/** Height of an instruction never reached */
+	public static final int UNREACHED = Integer.MIN_VALUE ;
+
+	// Stack effects of the primitives that can be verified, indexed by id:
+	// items popped, items pushed, and items pushed before any are popped,
+	// which is the room the primitive needs. Null if cannot be verified
+	private static final int[][] EFFECTS = new int[ Primitive.getCount() ][] ;
+
+	static
+	{
+		StackEffect.setEffect( Primitive.ADD , 2 , 1 , 0 ) ;
+		StackEffect.setEffect( Primitive.SUBTRACT , 2 , 1 , 0 ) ;
+		StackEffect.setEffect( Primitive.MULTIPLY , 2 , 1 , 0 ) ;
+		StackEffect.setEffect( Primitive.DIVIDE , 2 , 1 , 0 ) ;
+		StackEffect.setEffect( Primitive.MOD , 2 , 1 , 0 ) ;
+		StackEffect.setEffect( Primitive.LESSER , 2 , 1 , 0 ) ;
+		StackEffect.setEffect( Primitive.GREATER , 2 , 1 , 0 ) ;
+		StackEffect.setEffect( Primitive.EQUAL , 2 , 1 , 0 ) ;
+		StackEffect.setEffect( Primitive.NOT_EQUAL , 2 , 1 , 0 ) ;
+		StackEffect.setEffect( Primitive.DROP , 1 , 0 , 0 ) ;
+		StackEffect.setEffect( Primitive.SWAP , 2 , 2 , 0 ) ;
+		StackEffect.setEffect( Primitive.DUP , 1 , 2 , 1 ) ;
+		StackEffect.setEffect( Primitive.OVER , 2 , 3 , 1 ) ;
+		StackEffect.setEffect( Primitive.ROT , 3 , 3 , 0 ) ;
+		StackEffect.setEffect( Primitive.I , 0 , 1 , 1 ) ;
+		StackEffect.setEffect( Primitive.J , 0 , 1 , 1 ) ;
+		StackEffect.setEffect( Primitive.LEAVE , 0 , 0 , 0 ) ;
+		// Predefined words. Room is as checked by Interpreter.execPredefined
+		StackEffect.setEffect( Primitive.TRUE , 0 , 1 , 1 ) ;
+		StackEffect.setEffect( Primitive.FALSE , 0 , 1 , 1 ) ;
+		StackEffect.setEffect( Primitive.ZERO_EQUAL , 1 , 1 , 1 ) ;
+		StackEffect.setEffect( Primitive.ZERO_LESSER , 1 , 1 , 1 ) ;
+		StackEffect.setEffect( Primitive.ZERO_GREATER , 1 , 1 , 1 ) ;
+		StackEffect.setEffect( Primitive.ONE_PLUS , 1 , 1 , 1 ) ;
+		StackEffect.setEffect( Primitive.TWO_DUP , 2 , 4 , 2 ) ;
+		StackEffect.setEffect( Primitive.TWO_DROP , 2 , 0 , 0 ) ;
+		StackEffect.setEffect( Primitive.INVERT , 1 , 1 , 1 ) ;
+		StackEffect.setEffect( Primitive.OR , 2 , 1 , 0 ) ;
+		StackEffect.setEffect( Primitive.AND , 2 , 1 , 0 ) ;
+		StackEffect.setEffect( Primitive.DIVIDE_MOD , 2 , 2 , 2 ) ;
+		StackEffect.setEffect( Primitive.ABS , 1 , 1 , 2 ) ;
+		StackEffect.setEffect( Primitive.NEGATE , 1 , 1 , 1 ) ;
+		StackEffect.setEffect( Primitive.MIN , 2 , 1 , 2 ) ;
+		StackEffect.setEffect( Primitive.MAX , 2 , 1 , 2 ) ;
+	}
+	private static void setEffect( final int iPrimitive , final int iIn
+			, final int iOut , final int iRoom )
+	{
+		StackEffect.EFFECTS[ iPrimitive ] = new int[] { iIn , iOut , iRoom } ;
+		return ;
+	}
+
+	// The Bytecode of the word, without superinstructions
+	private final int[] iCode ;
+	// Stack height before each instruction
+	private final int[] iHeights ;
+	// Number of loops running before each instruction
+	private final int[] iLoops ;
+	// Instructions to visit
+	private final int[] iWork ;
+	private int iWorkSize = 0 ;
+	// Lowest and highest stack heights
+	private int iMin = 0 ;
+	private int iMax = 0 ;
+	// Stack height when the word returns
+	private int iResult = StackEffect.UNREACHED ;
+	// Most loops running at once
+	private int iMaxLoops = 0 ;
+	// Ids of the primitives used
+	private int[] iPrimitives = new int[ 0 ] ;
+	// Whether every division is by a number other than 0
+	private boolean bDivisorsChecked = true ;
+	// Generation of the Dictionary when the primitives were last checked
+	private int iGeneration = 0 ;
+
+	/** Constructor. Use infer */
+	private StackEffect( final int[] iCode )
+	{
+		this.iCode = iCode ;
+		this.iHeights = new int[ iCode.length ] ;
+		this.iLoops = new int[ iCode.length ] ;
+		this.iWork = new int[ iCode.length ] ;
+		Arrays.fill( this.iHeights , StackEffect.UNREACHED ) ;
+		return ;
+	}
+
+	/**
+	 * Infers the stack effect of a word
+	 * @param bytecode is the word compiled without superinstructions
+	 * @param ast is the word parsed, to read a ( before -- after ) comment
+	 * @return the stack effect, or null if it cannot be verified, or
+	 * does not match the comment
+	 */
+	public static StackEffect infer( final Bytecode bytecode , final AST ast )
+	{
+		final StackEffect effect = new StackEffect( bytecode.getCode() ) ;
+		final int[] iDeclared = StackEffect.getDeclared( ast ) ;
+		StackEffect ret = null ;
+
+		if ( effect.analyse() )
+		{
+			ret = effect ;
+			// The comment must take at least the items used, and
+			// leave the same number of items
+			if ( iDeclared != null && ( iDeclared[0] < effect.getDepth()
+					|| iDeclared[1] - iDeclared[0] != effect.iResult ) )
+			{
+				ret = null ;
+			}
+		}
+		return ret ;
+	}
+	/**
+	 * Reads the stack effect from a comment at the start of a word,
+	 * such as ( n1 n2 -- n3 )
+	 * @return the numbers of items before and after, or null if no comment
+	 */
+	public static int[] getDeclared( final AST ast )
+	{
+		final AST.Expression root = ast.getRoot() ;
+		AST.Expression comment = null ;
+		String[] szItems ;
+		int[] iRet = null ;
+
+		// The first child that is a comment
+		for ( int i = 0 ; i < root.getChildCount() && comment == null ; i ++ )
+		{
+			if ( root.getChild( i ).getContent() == null
+					&& root.getChild( i ).getChildCount() == 3
+					&& root.getChild( i ).getChild( 0 ).getContent() != null
+					&& root.getChild( i ).getChild( 0 ).getContent().getType()
+							== Token.Type.COMMENT_START )
+			{
+				comment = root.getChild( i ) ;
+			}
+		}
+		if ( comment != null && comment.getChild( 1 ).getContent() != null )
+		{
+			szItems = comment.getChild( 1 ).getContent().getString().trim().split( "\\s+" ) ;
+			for ( int i = 0 ; i < szItems.length ; i ++ )
+			{
+				if ( szItems[i].equals( "--" ) )
+				{
+					iRet = new int[] { i , szItems.length - i - 1 } ;
+					break ;
+				}
+			}
+		}
+		return iRet ;
+	}
+
+	/** Works out the stack height and loops running before each instruction,
+	 * following each branch
+	 * @return false if the word cannot be verified */
+	private boolean analyse()
+	{
+		final boolean[] bTargets = this.getTargets() ;
+		int iPC ;
+		int iNext ;
+		int iPrevious = -1 ;
+		int h ;
+		int l ;
+		int[] iEffect ;
+		boolean bRC = this.reach( 0 , 0 , 0 ) ;
+
+		// Divisions are checked when preceded by a number other than 0,
+		// and not branched to
+		for ( iPC = 0 ; iPC < this.iCode.length ; iPC = iPC + 1 + Bytecode.getOperands( this.iCode[ iPC ] ) )
+		{
+			if ( this.iCode[ iPC ] == Bytecode.PRIMITIVE
+					&& ( this.iCode[ iPC + 1 ] == Primitive.DIVIDE
+							|| this.iCode[ iPC + 1 ] == Primitive.MOD
+							|| this.iCode[ iPC + 1 ] == Primitive.DIVIDE_MOD )
+					&& ( iPrevious < 0 || bTargets[ iPC ]
+							|| this.iCode[ iPrevious ] != Bytecode.LITERAL
+							|| this.iCode[ iPrevious + 1 ] == 0 ) )
+			{
+				this.bDivisorsChecked = false ;
+			}
+			iPrevious = iPC ;
+		}
+
+		while ( bRC && this.iWorkSize > 0 )
+		{
+			iPC = this.iWork[ -- this.iWorkSize ] ;
+			h = this.iHeights[ iPC ] ;
+			l = this.iLoops[ iPC ] ;
+			iNext = iPC + 1 + Bytecode.getOperands( this.iCode[ iPC ] ) ;
+
+			switch ( this.iCode[ iPC ] )
+			{
+			case Bytecode.HALT :
+				// Must always return with the same height
+				bRC = this.iResult == StackEffect.UNREACHED || this.iResult == h ;
+				this.iResult = h ;
+				break ;
+			case Bytecode.LITERAL :
+				this.use( h , 0 , 1 ) ;
+				bRC = this.reach( iNext , h + 1 , l ) ;
+				break ;
+			case Bytecode.PRIMITIVE :
+				iEffect = StackEffect.EFFECTS[ this.iCode[ iPC + 1 ] ] ;
+				// Can only use loops started by this word
+				if ( iEffect == null
+						|| ( this.iCode[ iPC + 1 ] == Primitive.I && l < 1 )
+						|| ( this.iCode[ iPC + 1 ] == Primitive.J && l < 2 )
+						|| ( this.iCode[ iPC + 1 ] == Primitive.LEAVE && l < 1 ) )
+				{
+					bRC = false ;
+				}
+				else
+				{
+					this.addPrimitive( this.iCode[ iPC + 1 ] ) ;
+					this.use( h , iEffect[0] , iEffect[2] ) ;
+					bRC = this.reach( iNext , h - iEffect[0] + iEffect[1] , l ) ;
+				}
+				break ;
+			case Bytecode.BRANCH_ZERO :
+				this.use( h , 1 , 0 ) ;
+				bRC = this.reach( iNext , h - 1 , l )
+						&& this.reach( this.iCode[ iPC + 1 ] , h - 1 , l ) ;
+				break ;
+			case Bytecode.JUMP :
+			case Bytecode.LOOP :
+				bRC = this.reach( this.iCode[ iPC + 1 ] , h , l ) ;
+				break ;
+			case Bytecode.DO :
+				this.use( h , 2 , 0 ) ;
+				bRC = this.reach( iNext , h - 2 , l + 1 ) ;
+				this.iMaxLoops = Math.max( this.iMaxLoops , l + 1 ) ;
+				break ;
+			case Bytecode.LOOP_TEST :
+				bRC = this.reach( iNext , h , l )
+						&& this.reach( this.iCode[ iPC + 1 ] , h , l - 1 ) ;
+				break ;
+			case Bytecode.PLUS_LOOP :
+				this.use( h , 1 , 0 ) ;
+				bRC = this.reach( this.iCode[ iPC + 1 ] , h - 1 , l ) ;
+				break ;
+			default :
+				// Calls, variables, printing and anything else
+				// may change the stack in ways not known
+				bRC = false ;
+				break ;
+			}
+		}
+		return bRC && this.iResult != StackEffect.UNREACHED ;
+	}
+	/** @return whether each instruction is branched to */
+	private boolean[] getTargets()
+	{
+		final boolean[] bRet = new boolean[ this.iCode.length + 1 ] ;
+
+		for ( int iPC = 0 ; iPC < this.iCode.length ; iPC = iPC + 1 + Bytecode.getOperands( this.iCode[ iPC ] ) )
+		{
+			switch ( this.iCode[ iPC ] )
+			{
+			case Bytecode.BRANCH_ZERO :
+			case Bytecode.JUMP :
+			case Bytecode.LOOP_TEST :
+			case Bytecode.LOOP :
+			case Bytecode.PLUS_LOOP :
+				if ( this.iCode[ iPC + 1 ] >= 0 && this.iCode[ iPC + 1 ] < bRet.length )
+				{
+					bRet[ this.iCode[ iPC + 1 ] ] = true ;
+				}
+				break ;
+			}
+		}
+		return bRet ;
+	}
+	/** Sets the stack height and loops running before an instruction,
+	 * and visits it if not visited
+	 * @return false if different from the height and loops of another branch */
+	private boolean reach( final int iPC , final int h , final int l )
+	{
+		boolean bRC = true ;
+
+		if ( iPC < 0 || iPC >= this.iCode.length || l < 0 )
+		{
+			bRC = false ;
+		}
+		else if ( this.iHeights[ iPC ] == StackEffect.UNREACHED )
+		{
+			this.iHeights[ iPC ] = h ;
+			this.iLoops[ iPC ] = l ;
+			this.iWork[ this.iWorkSize ++ ] = iPC ;
+		}
+		else
+		{
+			bRC = this.iHeights[ iPC ] == h && this.iLoops[ iPC ] == l ;
+		}
+		return bRC ;
+	}
+	/** Records the lowest and highest stack heights of an instruction */
+	private void use( final int h , final int iIn , final int iRoom )
+	{
+		this.iMin = Math.min( this.iMin , h - iIn ) ;
+		this.iMax = Math.max( this.iMax , h + iRoom ) ;
+		return ;
+	}
+	/** Adds to the primitives used, if not there */
+	private void addPrimitive( final int iPrimitive )
+	{
+		for ( int i = 0 ; i < this.iPrimitives.length ; i ++ )
+		{
+			if ( this.iPrimitives[i] == iPrimitive )
+			{
+				return ;
+			}
+		}
+		this.iPrimitives = Arrays.copyOf( this.iPrimitives , this.iPrimitives.length + 1 ) ;
+		this.iPrimitives[ this.iPrimitives.length - 1 ] = iPrimitive ;
+		return ;
+	}
+
+	/** @return true if none of the primitives used have been redefined */
+	public boolean checkPrimitives( final Dictionary dict )
+	{
+		// Only check again if the dictionary has changed
+		if ( this.iGeneration != dict.getGeneration() )
+		{
+			for ( int i = 0 ; i < this.iPrimitives.length ; i ++ )
+			{
+				if ( dict.checkPrimitive( this.iPrimitives[i] ) == false )
+				{
+					return false ;
+				}
+			}
+			this.iGeneration = dict.getGeneration() ;
+		}
+		return true ;
+	}
+
+	// Getters
+	public int[] getCode() { return this.iCode ; }
+	/** @return the stack height before an instruction, or UNREACHED */
+	public int getHeight( final int iPC ) { return this.iHeights[ iPC ] ; }
+	/** @return the number of loops running before an instruction */
+	public int getLoops( final int iPC ) { return this.iLoops[ iPC ] ; }
+	/** @return the number of items the word takes from the stack */
+	public int getDepth() { return - this.iMin ; }
+	/** @return the largest number of items pushed above the items taken */
+	public int getGrowth() { return this.iMax ; }
+	/** @return the number of items added by the word, negative if removed */
+	public int getResult() { return this.iResult ; }
+	public int getMaxLoops() { return this.iMaxLoops ; }
+	public int[] getPrimitives() { return this.iPrimitives ; }
+	/** @return true if every division is by a number other than 0 */
+	public boolean getDivisorsChecked() { return this.bDivisorsChecked ; }
+
+	// For testing
+	public static void main( final String[] args )
+	{
+		final String[] tests = {
+				"( n -- n*n ) dup *"
+				, "( n -- ) dup *"
+				, "over over < if drop else swap drop then"
+				, "0 swap 0 do i + loop"
+				, "10 / 3 mod"
+				, "0 /"
+				, "if 1 then"
+				, ". "
+		} ;
+		AST ast ;
+		StackEffect effect ;
+
+		for ( int i = 0 ; i < tests.length ; i ++ )
+		{
+			ast = new Parser().parse( tests[i] ) ;
+			effect = StackEffect.infer( new BytecodeCompiler().compile( ast ) , ast ) ;
+			System.out.print( tests[i] + " : " ) ;
+			if ( effect == null )
+			{
+				System.out.println( "not verified" ) ;
+			}
+			else
+			{
+				System.out.println( "takes " + effect.getDepth() + ", adds "
+						+ effect.getResult() + ", grows by " + effect.getGrowth()
+						+ ( effect.getDivisorsChecked() ? "" : ", divides unchecked" ) ) ;
+			}
+		}
+	}
+}
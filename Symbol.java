@@ -0,0 +1,77 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * A table of variable names. Each name is given an integer id the first
+ * time it is seen, so that a variable can be resolved to its slot when it
+ * is parsed, instead of its name being looked up every time it is used.
+ * Each Dictionary has its own table, which code is parsed with, so ids
+ * are only meaningful in that Dictionary, and are freed with it.
+ *
+ */
+
+import java.util.Arrays;
+import java.util.Hashtable;
+
+public final class Symbol
+{
+	/** Id for a token that is not a variable name */
+	public static final int NONE = -1 ;
+
+	/** Ids of the names, indexed by name */
+	private final Hashtable<String , Integer> ids = new Hashtable<>() ;
+	/** Names, in lower case, indexed by id */
+	private String[] szNames = new String[ 64 ] ;
+	private int iCount = 0 ;
+
+	/**
+	 * Finds the id of a name, giving it a new id if it has not been seen
+	 * @param szName is the name, in any case
+	 * @return the id, or NONE if the name is null
+	 */
+	public int intern( final String szName )
+	{
+		final String szKey ;
+		Integer id ;
+		int iRet = Symbol.NONE ;
+
+		if ( szName != null )
+		{
+			szKey = szName.trim().toLowerCase() ;
+			id = this.ids.get( szKey ) ;
+			// New name
+			if ( id == null )
+			{
+				// Double the size of the array if full
+				if ( this.iCount == this.szNames.length )
+				{
+					this.szNames = Arrays.copyOf( this.szNames , this.iCount * 2 ) ;
+				}
+				id = this.iCount ;
+				this.szNames[ this.iCount ++ ] = szKey ;
+				this.ids.put( szKey , id ) ;
+			}
+			iRet = id ;
+		}
+		return iRet ;
+	}
+	/** Removes all names, so ids start from 0 again. Code parsed with
+	 * the table before must not be executed after */
+	public void clear()
+	{
+		this.ids.clear() ;
+		this.szNames = new String[ 64 ] ;
+		this.iCount = 0 ;
+		return ;
+	}
+
+	/** @return the name with the given id, in lower case */
+	public String getName( final int iSymbol )
+	{
+		return this.szNames[ iSymbol ] ;
+	}
+	/** @return the number of names seen */
+	public int getCount()
+	{
+		return this.iCount ;
+	}
+}
@@ -6,9 +6,11 @@
  */
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.PrintStream;
 
 public final class TestInterpreter 
 {
@@ -45,94 +47,101 @@ public final class TestInterpreter
 		}
 		System.out.println();
 	}
+	/** @return everything the Interpreter printed, to System.out or 
+	 * System.err, while executing the code */
+	private static String capture( final Interpreter intp , final String szCode )
+	{
+		final PrintStream out = System.out ;
+		final PrintStream err = System.err ;
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream() ;
+		final PrintStream print = new PrintStream( bytes , true ) ;
+
+		System.setOut( print ) ;
+		System.setErr( print ) ;
+		try
+		{
+			intp.execute( szCode ) ;
+		}
+		finally
+		{
+			System.setOut( out ) ;
+			System.setErr( err ) ;
+		}
+		return bytes.toString() ;
+	}
 	// Test
 	public static void main( String[] args ) 
 	{
-		final Interpreter intp = new Interpreter() ; 
-		final String[][][] szTestPaths = {
-				{ 
-					// Chapter 1
-					{ "Spaces" , "ch01_01_spaces.fth" }
-					, { "Asterisk" , "ch01_02_asterisk.fth" }
-					, { "F" , "ch01_03_f.fth" }
-					, { "XLERB" , "ch01_04_xlerb.fth" }
-					, { "Greet" , "ch01_05_greet.fth" }
-					, { "Arithmetic" , "ch01_06_arithemetic.fth" }
-					, { "Stack" , "ch01_07_stack.fth" }
-					, { "Empty Stack" , "ch01_08_stack_empty.fth" }
-				}
-				, {
-					// Chapter 2
-					{ "Addition" , "ch02_01_addition.fth" }		
-					, { "Multiplication" , "ch02_02_multiplication.fth" }
-					, { "Subtraction" , "ch02_03_subtraction.fth" }
-					, { "Division" , "ch02_04_division.fth" }
-					, { "Multiple" , "ch02_05_mutliple.fth" }
-					, { "Definition Style" , "ch02_06_definition_style.fth" }
-					, { "Sum" , "ch02_07_sum.fth" }
-					, { "Flight distance" , "ch02_08_flight_distance.fth" }
-					, { "Division operators" , "ch02_09_division_operators.fth" }
-					, { "Stack manipulation" , "ch02_10_stack_manipulation.fth" }			
-				}
-				, {
-					// Chapter 3
-					{ "Dictionary" , "ch03_01_dictionary" }
-				}
-				, {
-					// Chapter 4
-					{ "Conditionals" , "ch04_01_conditionals.fth" }
-					, { "Alternatives" , "ch04_02_alternatives.fth" } 
-					, { "Nests" , "ch04_03_nests.fth" } 
-					, { "Zeroes" , "ch04_04_zeroes.fth" } 
-					, { "Boxtest" , "ch04_05_boxtest.fth" }
-				} 
-				, {
-					// Chapter 5
-					{ "Misc. maths" , "ch05_01_miscmaths.fth" }
-					, { "Return stack" , "ch05_02_returnstack.fth" }
-					, { "R%" , "ch05_03_rpercent.fth" }
-					, { "Pi" , "ch05_04_pi.fth" }
-				}
-				, {
-					// Chapter 6
-					{ "Do loop" , "ch06_01_doloop.fth" }
-					, { "Decade" , "ch06_02_decade.fth" }
-					, { "Sample" , "ch06_03_sample.fth" }
-					, { "Multiplication" , "ch06_04_multiplications.fth" }
-					, { "Compound" , "ch06_05_compound_interest.fth" }
-					, { "Rectangle" , "ch06_06_rectangle.fth" }
-					, { "Poem" , "ch06_07_poem.fth" }
-					, { "Nested loops" , "ch06_08_nested_loops.fth" }
-					, { "+loop" , "ch06_09_plusloop.fth" }
-				}
+		final Interpreter.Engine[] engines = Interpreter.Engine.values() ;
+		// Engine whose output is printed. Can be chosen with the first 
+		// argument, e.g. 'bytecode' or 'closure'
+		final Interpreter.Engine shown = args.length > 0 
+				? Interpreter.Engine.valueOf( args[0].toUpperCase() ) : Interpreter.Engine.TREE ;
+		boolean bSame = true ;
+		// The programs in tests/chNN, one per chapter of Starting Forth 
+		// that the Interpreter supports
+		final String[][] szTestPaths = {
+				{ "Fundamentals" , "ch01/c01.fth" }
+				, { "Arithmetic and stack manipulation" , "ch02/c02.fth" }
+				, { "Decisions" , "ch04/c04.fth" }
+				, { "Fixed point and the return stack" , "ch05/c05.fth" }
+				, { "Loops" , "ch06/c06.fth" }
+				, { "Variables and recursion" , "ch07/c07.fth" }
+				, { "Redefinition and leave" , "ch08/c08.fth" }
 		} ;
+		// Output of each test, by engine
+		final String[][] szOutputs = new String[ engines.length ][ szTestPaths.length ] ;
 		try
 		{
-			// For each chapter
-			for ( int i = 0 ; i < szTestPaths.length ; i ++ )
+			// Execute each file with each engine, each engine having its 
+			// own Interpreter
+			for ( int iEngine = 0 ; iEngine < engines.length ; iEngine ++ )
 			{
-				// Execute each file
-				for ( int j = 0 ; j < szTestPaths[i].length ; j ++ )
+				final Interpreter intp = new Interpreter() ; 
+				intp.setEngine( engines[ iEngine ] ) ;
+				for ( int i = 0 ; i < szTestPaths.length ; i ++ )
 				{
 					// // Reset interpreter
 					// intp.reset()
-					printDiv() ; 
-					// Print chapter number, test number, and test name
-					System.out.println( "Chapter " + ( i + 1 )
-							+ " test " + ( j + 1 ) + " :: " + szTestPaths[i][j][0] ) ;
-					printDiv() ;
-					// Execute
-					intp.execute( readFile( 
-							String.format( "tests/ch%02d/%s" 
-									, i + 1 , szTestPaths[i][j][1] ) ) ) ;
-					// printDiv() ; 
-					System.out.println( "\n\n" ) ;
+					szOutputs[ iEngine ][i] = capture( intp , readFile( "tests/" + szTestPaths[i][1] ) ) ;
 				}
 			}
 		}
 		catch ( final Exception e )
 		{
 			e.printStackTrace();
+			return ;
+		}
+		for ( int i = 0 ; i < szTestPaths.length ; i ++ )
+		{
+			printDiv() ; 
+			// Print test number, test name and file
+			System.out.println( "Test " + ( i + 1 ) + " :: " + szTestPaths[i][0] 
+					+ " ( " + szTestPaths[i][1] + " )" ) ;
+			printDiv() ;
+			System.out.print( szOutputs[ shown.ordinal() ][i] ) ;
+			// printDiv() ; 
+			System.out.println( "\n\n" ) ;
+		}
+		// Every engine must give the same output as the tree walker
+		printDiv() ;
+		for ( int iEngine = 0 ; iEngine < engines.length ; iEngine ++ )
+		{
+			for ( int i = 0 ; i < szTestPaths.length ; i ++ )
+			{
+				if ( szOutputs[ iEngine ][i].equals( szOutputs[ Interpreter.Engine.TREE.ordinal() ][i] ) == false )
+				{
+					System.out.println( engines[ iEngine ] + " output differs from TREE in test " 
+							+ ( i + 1 ) + " :: " + szTestPaths[i][0] ) ;
+					bSame = false ;
+				}
+			}
+		}
+		System.out.println( bSame ? "All engines give the same output as TREE" 
+				: "Engines give different output" ) ;
+		if ( bSame == false )
+		{
+			System.exit( 1 ) ;
 		}
 	}
 }
@@ -50,6 +50,46 @@ public final class TestParser
 		System.out.println( test.szContent ) ;
 		printDiv( "-" ) ;
 	}
+	/** @return a message saying whether FastLexer gives the same tokens,
+	 * or error, as Lexer given the code as Parser used to */
+	private static String compareLexers( final String szCode )
+	{
+		String szOld ;
+		String szNew ;
+
+		try
+		{
+			szOld = TestParser.describe( new Lexer().tokenise(
+					szCode.replaceAll( "(\t|\n|\r)" , "  " ) + "  " ) ) ;
+		}
+		catch ( final RuntimeException e )
+		{
+			szOld = e.getMessage() ;
+		}
+		try
+		{
+			szNew = TestParser.describe( new FastLexer().tokenise( szCode ) ) ;
+		}
+		catch ( final RuntimeException e )
+		{
+			szNew = e.getMessage() ;
+		}
+		return szOld.equals( szNew ) ? "FastLexer: same as Lexer"
+				: "FastLexer: differs from Lexer\n  " + szOld + "\n  " + szNew ;
+	}
+	/** @return the types and strings of tokens */
+	private static String describe( final LinkedList<Token> tokens )
+	{
+		final StringBuilder sb = new StringBuilder() ;
+		final Object[] items = tokens.toArray() ;
+
+		for ( int i = 0 ; i < items.length ; i ++ )
+		{
+			final Token token = ( Token ) items[i] ;
+			sb.append( token.getType() ).append( '[' ).append( token.getString() ).append( "] " ) ;
+		}
+		return sb.toString() ;
+	}
 	public static void main( String[] args ) 
 	{
 		final Test[] tests = {
@@ -226,6 +266,7 @@ public final class TestParser
 				// If runtime exception, print message
 				System.out.println( e.getMessage() ) ;
 			}
+			System.out.println( compareLexers( tests[i].szContent ) ) ;
 			printDiv( "=" ) ;
 			System.out.println( "" ) ;
 		}
@@ -34,23 +34,95 @@ public final class Token
 		, BREAK ; 
 	}
 	
-	// The String/text of the token
-	private final String szString ;
+	// The String/text of the token. Taken from szSource when first needed
+	private String szString ;
+	// The source code the token was lexed from, or null if not known
+	private final String szSource ;
+	// Where the token is in the source: index of its first character,
+	// number of characters, and line and column from 1. -1 if not known
+	private final int iStart ;
+	private final int iLength ;
+	private final int iLine ;
+	private final int iColumn ;
 	// The token's type
 	private Type type ;
+	// The id of the primitive a WORD token refers to, resolved by the Parser
+	private int iPrimitive = Primitive.NONE ;
+	// The id of the name a VARIABLE_NAME token refers to, resolved by the Parser
+	private int iSymbol = Symbol.NONE ;
+	// The cached lookup of a WORD token, created when first executed
+	private CallSite callSite = null ;
+	// The value of a LITERAL token, parsed by the Parser
+	private int iValue = 0 ;
+	// Whether iValue has been set. False if the literal is not a valid int
+	private boolean bValue = false ;
 	
 	// Constructor
 	public Token( final String szString , final Type type )
+	{
+		this( szString , type , null , -1 , -1 , -1 , -1 ) ;
+		return ;
+	}
+	/** 
+	 * Constructor for a token with a known place in the source code
+	 * @param szString : the text of the token, or null to take it from the source
+	 * @param type : the type of the token
+	 * @param szSource : the source code
+	 * @param iStart : the index of the token's first character in the source
+	 * @param iLength : the number of characters of the token in the source
+	 * @param iLine : the line of the first character, from 1
+	 * @param iColumn : the column of the first character, from 1
+	 */
+	public Token( final String szString , final Type type , final String szSource 
+			, final int iStart , final int iLength , final int iLine , final int iColumn )
 	{
 		this.szString = szString ;
+		this.szSource = szSource ;
+		this.iStart = iStart ;
+		this.iLength = iLength ;
+		this.iLine = iLine ;
+		this.iColumn = iColumn ;
 		this.setType( type ) ; 
 		return ;
 	}
 	
 	// Setters
 	public void setType( final Type type ) { this.type = type ; }
+	public void setPrimitive( final int iPrimitive ) { this.iPrimitive = iPrimitive ; }
+	public void setSymbol( final int iSymbol ) { this.iSymbol = iSymbol ; }
+	public void setValue( final int iValue ) 
+	{ 
+		this.iValue = iValue ; 
+		this.bValue = true ; 
+	}
 	
 	// Getters
-	public String getString() { return this.szString ; } 
+	public String getString() 
+	{ 
+		// Copied from the source only when needed
+		if ( this.szString == null && this.szSource != null )
+		{
+			this.szString = this.szSource.substring( this.iStart , this.iStart + this.iLength ) ;
+		}
+		return this.szString ; 
+	} 
+	public int getStart() { return this.iStart ; }
+	public int getLength() { return this.iLength ; }
+	public int getLine() { return this.iLine ; }
+	public int getColumn() { return this.iColumn ; }
 	public Type getType() { return this.type ; }
+	public int getPrimitive() { return this.iPrimitive ; }
+	public int getSymbol() { return this.iSymbol ; }
+	public int getValue() { return this.iValue ; }
+	/** @return true if the value of a LITERAL token has been parsed */
+	public boolean hasValue() { return this.bValue ; }
+	/** @return the cached lookup of the token as a word */
+	public CallSite getCallSite()
+	{
+		if ( this.callSite == null )
+		{
+			this.callSite = new CallSite( this.getString() ) ;
+		}
+		return this.callSite ;
+	}
 }
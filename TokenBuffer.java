@@ -0,0 +1,264 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Tokens stored as parallel arrays, one element per token, instead of a
+ * Token object each in a LinkedList. FastLexer fills it and Parser reads
+ * it by index, so both take time linear in the number of tokens.
+ * Positions are indexes into the source code. A token's text is taken
+ * from the source unless it differs, e.g. where whitespace was replaced.
+ * The names of words and variables are interned, so that each distinct
+ * name is one String with an id, and the Parser only needs to look up
+ * each name once.
+ *
+ */
+
+import java.util.Arrays;
+
+public class TokenBuffer
+{
+	/** Id for a token without a name */
+	public static final int NO_NAME = -1 ;
+
+	// Token.Type.values(), indexed by the bytes stored
+	private static final Token.Type[] TYPES = Token.Type.values() ;
+
+	// The source code the tokens were lexed from, or null if not known
+	private final String szSource ;
+	// Indexes in the source of its newlines, in order
+	private int[] iNewlines = new int[ 16 ] ;
+	private int iNewlineCount = 0 ;
+
+	// One element of each per token
+	private byte[] types ; // Ordinal of the type
+	private int[] iStarts ; // Index of the first character in the source, or -1
+	private int[] iLengths ; // Number of characters in the source, or -1
+	private int[] iNames ; // Id of the name, or NO_NAME
+	private String[] szTexts ; // Text if not as in the source, otherwise null
+	private int iCount = 0 ;
+
+	// Interned names, indexed by id
+	private String[] szNames = new String[ 16 ] ;
+	private int iNameCount = 0 ;
+	// Open-addressed hash table of name ids plus one, 0 if empty
+	private int[] iTable = new int[ 32 ] ;
+
+	/** Constructor
+	 * @param szSource : the source code, or null if not known */
+	public TokenBuffer( final String szSource )
+	{
+		final int iCapacity = szSource == null ? 16 : Math.max( szSource.length() / 4 , 16 ) ;
+
+		this.szSource = szSource ;
+		this.types = new byte[ iCapacity ] ;
+		this.iStarts = new int[ iCapacity ] ;
+		this.iLengths = new int[ iCapacity ] ;
+		this.iNames = new int[ iCapacity ] ;
+		this.szTexts = new String[ iCapacity ] ;
+		return ;
+	}
+	/** Constructor copying tokens already lexed
+	 * @param tokens : the tokens, as given by Lexer.tokenise */
+	public TokenBuffer( final LinkedList<Token> tokens )
+	{
+		this( ( String ) null ) ;
+
+		for ( final Token token : tokens )
+		{
+			this.add( token.getType() , token.getString() , token.getStart() , token.getLength() ) ;
+		}
+		return ;
+	}
+
+	/** Records a newline in the source, for working out lines and columns
+	 * @param iIndex : the index of the newline in the source, after any before */
+	public void addNewline( final int iIndex )
+	{
+		if ( this.iNewlineCount == this.iNewlines.length )
+		{
+			this.iNewlines = Arrays.copyOf( this.iNewlines , this.iNewlineCount * 2 ) ;
+		}
+		this.iNewlines[ this.iNewlineCount ++ ] = iIndex ;
+		return ;
+	}
+	/**
+	 * Adds a token
+	 * @param type : the type of the token
+	 * @param szText : the text of the token, or null if as in the source
+	 * @param iStart : the index of the first character in the source, or -1
+	 * @param iLength : the number of characters in the source, or -1
+	 */
+	public void add( final Token.Type type , final String szText , final int iStart , final int iLength )
+	{
+		// Double the size of the arrays if full
+		if ( this.iCount == this.types.length )
+		{
+			this.types = Arrays.copyOf( this.types , this.iCount * 2 ) ;
+			this.iStarts = Arrays.copyOf( this.iStarts , this.iCount * 2 ) ;
+			this.iLengths = Arrays.copyOf( this.iLengths , this.iCount * 2 ) ;
+			this.iNames = Arrays.copyOf( this.iNames , this.iCount * 2 ) ;
+			this.szTexts = Arrays.copyOf( this.szTexts , this.iCount * 2 ) ;
+		}
+		this.iStarts[ this.iCount ] = iStart ;
+		this.iLengths[ this.iCount ] = iLength ;
+		this.szTexts[ this.iCount ] = szText ;
+		this.iNames[ this.iCount ] = TokenBuffer.NO_NAME ;
+		this.setType( this.iCount ++ , type ) ;
+		return ;
+	}
+	/** Changes the type of a token, interning its name if it now has one */
+	public void setType( final int i , final Token.Type type )
+	{
+		this.types[i] = ( byte ) type.ordinal() ;
+		if ( this.iNames[i] == TokenBuffer.NO_NAME
+				&& ( type == Token.Type.WORD || type == Token.Type.WORD_NAME
+				|| type == Token.Type.VARIABLE_NAME ) )
+		{
+			this.iNames[i] = this.intern( i ) ;
+		}
+		return ;
+	}
+
+	/** @return the id of the name of a token, giving it a new id if it
+	 * has not been seen, or NO_NAME if the token has no text */
+	private int intern( final int i )
+	{
+		final String szBase = this.szTexts[i] != null ? this.szTexts[i] : this.szSource ;
+		final int iOffset = this.szTexts[i] != null ? 0 : this.iStarts[i] ;
+		final int iLength = this.szTexts[i] != null ? this.szTexts[i].length() : this.iLengths[i] ;
+		int iHash = 0 ;
+		int iSlot ;
+		int iId ;
+
+		if ( szBase == null || iOffset < 0 )
+		{
+			return TokenBuffer.NO_NAME ;
+		}
+		for ( int j = 0 ; j < iLength ; j ++ )
+		{
+			iHash = 31 * iHash + szBase.charAt( iOffset + j ) ;
+		}
+		// Look from the hashed slot to the first empty slot
+		iSlot = ( iHash ^ ( iHash >>> 16 ) ) & ( this.iTable.length - 1 ) ;
+		while ( this.iTable[ iSlot ] != 0 )
+		{
+			iId = this.iTable[ iSlot ] - 1 ;
+			if ( this.szNames[ iId ].length() == iLength
+					&& this.szNames[ iId ].regionMatches( 0 , szBase , iOffset , iLength ) )
+			{
+				return iId ;
+			}
+			iSlot = ( iSlot + 1 ) & ( this.iTable.length - 1 ) ;
+		}
+		// New name
+		if ( this.iNameCount == this.szNames.length )
+		{
+			this.szNames = Arrays.copyOf( this.szNames , this.iNameCount * 2 ) ;
+		}
+		iId = this.iNameCount ++ ;
+		this.szNames[ iId ] = szBase.substring( iOffset , iOffset + iLength ) ;
+		this.iTable[ iSlot ] = iId + 1 ;
+		// Keep the table at most half full
+		if ( this.iNameCount * 2 > this.iTable.length )
+		{
+			this.rehash() ;
+		}
+		return iId ;
+	}
+	/** Doubles the size of the hash table */
+	private void rehash()
+	{
+		final int[] iOld = this.iTable ;
+		int iSlot ;
+
+		this.iTable = new int[ iOld.length * 2 ] ;
+		for ( int j = 0 ; j < iOld.length ; j ++ )
+		{
+			if ( iOld[j] != 0 )
+			{
+				iSlot = this.szNames[ iOld[j] - 1 ].hashCode() ;
+				iSlot = ( iSlot ^ ( iSlot >>> 16 ) ) & ( this.iTable.length - 1 ) ;
+				while ( this.iTable[ iSlot ] != 0 )
+				{
+					iSlot = ( iSlot + 1 ) & ( this.iTable.length - 1 ) ;
+				}
+				this.iTable[ iSlot ] = iOld[j] ;
+			}
+		}
+		return ;
+	}
+
+	// Getters
+	public String getSource() { return this.szSource ; }
+	public int getCount() { return this.iCount ; }
+	public Token.Type getType( final int i ) { return TokenBuffer.TYPES[ this.types[i] ] ; }
+	public int getStart( final int i ) { return this.iStarts[i] ; }
+	public int getLength( final int i ) { return this.iLengths[i] ; }
+	/** @return the id of the token's name, or NO_NAME */
+	public int getName( final int i ) { return this.iNames[i] ; }
+	/** @return the name with the given id */
+	public String getNameString( final int iName ) { return this.szNames[ iName ] ; }
+	/** @return the number of distinct names */
+	public int getNameCount() { return this.iNameCount ; }
+	/** @return the text of a token, or null if it has none */
+	public String getString( final int i )
+	{
+		if ( this.iNames[i] != TokenBuffer.NO_NAME )
+		{
+			return this.szNames[ this.iNames[i] ] ;
+		}
+		if ( this.szTexts[i] == null && this.szSource != null && this.iStarts[i] >= 0 )
+		{
+			return this.szSource.substring( this.iStarts[i] , this.iStarts[i] + this.iLengths[i] ) ;
+		}
+		return this.szTexts[i] ;
+	}
+	/** @return the line of a token's first character, from 1, or -1 if not known */
+	public int getLine( final int i )
+	{
+		if ( this.szSource == null || this.iStarts[i] < 0 )
+		{
+			return -1 ;
+		}
+		return this.countNewlines( this.iStarts[i] ) + 1 ;
+	}
+	/** @return the column of a token's first character, from 1, or -1 if not known */
+	public int getColumn( final int i )
+	{
+		final int iLines ;
+
+		if ( this.szSource == null || this.iStarts[i] < 0 )
+		{
+			return -1 ;
+		}
+		iLines = this.countNewlines( this.iStarts[i] ) ;
+		return this.iStarts[i] - ( iLines == 0 ? 0 : this.iNewlines[ iLines - 1 ] + 1 ) + 1 ;
+	}
+	/** @return the number of newlines before an index in the source */
+	private int countNewlines( final int iIndex )
+	{
+		final int iFound = Arrays.binarySearch( this.iNewlines , 0 , this.iNewlineCount , iIndex ) ;
+		return iFound >= 0 ? iFound : - iFound - 1 ;
+	}
+	/** @return a new Token for the token at an index. Names are shared,
+	 * and other text is only copied from the source when needed */
+	public Token getToken( final int i )
+	{
+		final String szText = this.iNames[i] != TokenBuffer.NO_NAME ? this.szNames[ this.iNames[i] ]
+				: this.szTexts[i] ;
+		final String szFrom = this.iStarts[i] < 0 ? null : this.szSource ;
+
+		return new Token( szText , this.getType( i ) , szFrom , this.iStarts[i]
+				, this.iLengths[i] , this.getLine( i ) , this.getColumn( i ) ) ;
+	}
+	/** @return the tokens as a LinkedList of Tokens */
+	public LinkedList<Token> toList()
+	{
+		final LinkedList<Token> ret = new LinkedList<Token>() ;
+
+		for ( int i = 0 ; i < this.iCount ; i ++ )
+		{
+			ret.add( this.getToken( i ) ) ;
+		}
+		return ret ;
+	}
+}
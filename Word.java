@@ -12,11 +12,55 @@ public class Word
 	private String szDefinition ;
 	/** The history of definitions */ 
 	private LinkedList<String> defHistory ;
+	/** The compiled form of the current definition. Null until first
+	 * needed, and discarded whenever the current definition changes */
+	private AST ast ;
+	/** The current definition compiled to Bytecode, which every engine 
+	 * executes the word as. Null until first needed, and discarded 
+	 * whenever the current definition changes */
+	private Bytecode bytecode ;
+	/** The stack effect of the current definition. Null until first needed, 
+	 * and discarded whenever the current definition changes */
+	private StackEffect effect ;
+	/** True if the stack effect of the current definition cannot be verified */
+	private boolean bNotVerified ;
+	/** The current definition compiled to JVM code. Null until called
+	 * often enough, and discarded whenever the current definition changes */
+	private CompiledWord compiled ;
+	/** Number of calls of the current definition, counted until compiled */
+	private int iCalls ;
+	/** True if the current definition cannot be compiled to JVM code */
+	private boolean bNotCompiled ;
+	/** The id of the primitive with the same name as this word, 
+	 * or Primitive.NONE if there is not one */
+	private final int iPrimitive ;
+	/** True if the current definition is the primitive itself */
+	private boolean bPrimitive ;
+	/** The ids of variable names the definition is parsed with, 
+	 * those of the Dictionary holding the word */
+	private final Symbol symbols ;
 	
 	/** Constructors */
 	// szFunction renamed to szDefinition
 	public Word( final String szDefinition )
 	{
+		this( szDefinition , Primitive.NONE ) ;
+		return ;
+	}
+	/** Constructor for a word that may be a primitive 
+	 * @param iPrimitive is the id of the primitive with the same name */
+	public Word( final String szDefinition , final int iPrimitive )
+	{
+		this( szDefinition , iPrimitive , new Symbol() ) ;
+		return ;
+	}
+	/** Constructor for a word in a Dictionary
+	 * @param iPrimitive is the id of the primitive with the same name
+	 * @param symbols is the Dictionary's table of variable names */
+	public Word( final String szDefinition , final int iPrimitive , final Symbol symbols )
+	{
+		this.iPrimitive = iPrimitive ;
+		this.symbols = symbols ;
 		this.reset() ; 
 		this.assignDefinition( szDefinition ) ;
 		return ;
@@ -43,6 +87,18 @@ public class Word
 	{
 		// Set szDefinition
 		this.szDefinition = szDefinition ;
+		// Discard compiled forms of the old definition
+		this.ast = null ;
+		this.bytecode = null ;
+		this.effect = null ;
+		this.bNotVerified = false ;
+		this.compiled = null ;
+		this.iCalls = 0 ;
+		this.bNotCompiled = false ;
+		// Primitives are defined as themselves
+		this.bPrimitive = this.iPrimitive != Primitive.NONE 
+				&& szDefinition.trim().equalsIgnoreCase( 
+						Primitive.getName( this.iPrimitive ) ) ;
 		return ; 
 	}
 	/** Removes last added function from history */
@@ -65,7 +121,99 @@ public class Word
 	
 	/** Getter for definition */
 	public String getDefinition() { return this.szDefinition ; } 
+
+	/** Gets the compiled form of the current definition, 
+	 * lexing and parsing it only if it has not been compiled yet */
+	public AST getAST()
+	{
+		if ( this.ast == null )
+		{
+			this.ast = new Parser( this.symbols ).parse( this.szDefinition ) ;
+		}
+		return this.ast ;
+	}
+	/** Gets the current definition compiled to Bytecode, 
+	 * compiling it only if it has not been compiled yet, 
+	 * or was compiled with a different setting
+	 * @param bOptimise is true to use superinstructions */
+	public Bytecode getBytecode( final boolean bOptimise )
+	{
+		if ( this.bytecode == null || this.bytecode.isOptimised() != bOptimise )
+		{
+			final ForthEvents.Compile event = this.beginCompile() ;
+			this.bytecode = new BytecodeCompiler( bOptimise ).compile( this.getAST() ) ;
+			this.endCompile( event , "bytecode" , true ) ;
+		}
+		return this.bytecode ;
+	}
+	
+	/** Gets the stack effect of the current definition, inferring it only 
+	 * if it has not been inferred yet
+	 * @return null if it cannot be verified */
+	public StackEffect getStackEffect()
+	{
+		if ( this.effect == null && this.bNotVerified == false )
+		{
+			// Inferred without superinstructions, which StackEffect does not know
+			try
+			{
+				this.effect = StackEffect.infer( 
+						new BytecodeCompiler().compile( this.getAST() ) , this.getAST() ) ;
+			}
+			catch ( final RuntimeException e )
+			{
+				// Syntax errors are reported when the word is executed
+				this.effect = null ;
+			}
+			this.bNotVerified = this.effect == null ;
+		}
+		return this.effect ;
+	}
+	/** Counts a call of the current definition, and gets it compiled to
+	 * JVM code, compiling it once it has been called often enough
+	 * @param iThreshold is the number of calls before compiling
+	 * @return null if not compiled */
+	public CompiledWord getCompiled( final int iThreshold )
+	{
+		if ( this.compiled == null && this.bNotCompiled == false
+				&& ++ this.iCalls >= iThreshold )
+		{
+			if ( this.getStackEffect() != null )
+			{
+				final ForthEvents.Compile event = this.beginCompile() ;
+				this.compiled = JitCompiler.compile( this.getStackEffect() ) ;
+				this.endCompile( event , "jvm" , this.compiled != null ) ;
+			}
+			this.bNotCompiled = this.compiled == null ;
+		}
+		return this.compiled ;
+	}
+	/** Starts timing a compilation, for Java Flight Recorder */
+	private ForthEvents.Compile beginCompile()
+	{
+		final ForthEvents.Compile event = new ForthEvents.Compile() ;
+		event.begin() ;
+		return event ;
+	}
+	/** Records a compilation, if Java Flight Recorder is recording it */
+	private void endCompile( final ForthEvents.Compile event , final String szTarget 
+			, final boolean bCompiled )
+	{
+		if ( event.shouldCommit() )
+		{
+			event.target = szTarget ;
+			event.definition = this.szDefinition ;
+			event.compiled = bCompiled ;
+			event.commit() ;
+		}
+		return ;
+	}
 	
+	/** @return the id of the primitive with the same name as this word */
+	public int getPrimitive() { return this.iPrimitive ; }
+	/** @return true if currently defined as the primitive */
+	public boolean isPrimitive() { return this.bPrimitive ; }
+
 	/** Getter for history */
 	public LinkedList<String> getHistory() { return this.defHistory ; } 
 }
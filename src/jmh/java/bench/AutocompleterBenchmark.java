@@ -0,0 +1,23 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Autocompleter.getWordsFromStub over 1000 words, with stubs matching
+ * 111 and 11 of them
+ *
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State( Scope.Thread )
+public class AutocompleterBenchmark extends ForthBenchmark
+{
+	@Param( { "autocompleter.getWordsFromStub.111" , "autocompleter.getWordsFromStub.11" } )
+	public String szName ;
+
+	@Override
+	protected String getName() { return this.szName ; }
+}
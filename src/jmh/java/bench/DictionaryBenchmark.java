@@ -0,0 +1,22 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Dictionary.getWord and checkWordDefined, over 64 words
+ *
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State( Scope.Thread )
+public class DictionaryBenchmark extends ForthBenchmark
+{
+	@Param( { "dictionary.getWord" , "dictionary.checkWordDefined" } )
+	public String szName ;
+
+	@Override
+	protected String getName() { return this.szName ; }
+}
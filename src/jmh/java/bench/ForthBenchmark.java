@@ -0,0 +1,79 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Base of the JMH benchmarks. Each runs one of the operations made by
+ * Benchmarks, chosen by the name in its szName parameter. The classes of
+ * the IDE are in the default package, which JMH benchmarks cannot be in
+ * and cannot name, so Benchmarks is found by reflection, once per trial.
+ * Output of the Interpreter is thrown away while benchmarking.
+ *
+ */
+
+package bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3 , time = 1 )
+@Measurement( iterations = 5 , time = 1 )
+@Fork( 1 )
+public abstract class ForthBenchmark
+{
+	private IntSupplier op ;
+	private PrintStream out ;
+	private PrintStream err ;
+
+	/** @return the name of the operation, as printed by Benchmarks.main */
+	protected abstract String getName() ;
+
+	@Setup( Level.Trial )
+	public void setup() throws ReflectiveOperationException
+	{
+		final PrintStream nowhere = new PrintStream( OutputStream.nullOutputStream() ) ;
+
+		this.out = System.out ;
+		this.err = System.err ;
+		System.setOut( nowhere ) ;
+		System.setErr( nowhere ) ;
+		this.op = ( IntSupplier ) Class.forName( "Benchmarks" )
+				.getMethod( "getOperation" , String.class ).invoke( null , this.getName() ) ;
+		if ( this.op == null )
+		{
+			throw new IllegalArgumentException( "No benchmark " + this.getName() ) ;
+		}
+		return ;
+	}
+	@TearDown( Level.Trial )
+	public void tearDown()
+	{
+		System.setOut( this.out ) ;
+		System.setErr( this.err ) ;
+		return ;
+	}
+
+	/** @return the result of the operation, which JMH keeps from being
+	 * removed as unused */
+	@Benchmark
+	public int run()
+	{
+		return this.op.getAsInt() ;
+	}
+}
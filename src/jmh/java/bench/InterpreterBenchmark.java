@@ -0,0 +1,36 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * The Interpreter with each engine, running the programs in tests/chNN,
+ * the sum, nested and fib kernels with and without the JIT, and code run
+ * again with and without the ProgramCache
+ *
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State( Scope.Thread )
+public class InterpreterBenchmark extends ForthBenchmark
+{
+	@Param( { "interpreter.tests.tree" , "interpreter.tests.bytecode" , "interpreter.tests.closure"
+			, "interpreter.sum.tree" , "interpreter.sum.tree.jit"
+			, "interpreter.sum.bytecode" , "interpreter.sum.bytecode.jit"
+			, "interpreter.sum.closure" , "interpreter.sum.closure.jit"
+			, "interpreter.nested.tree" , "interpreter.nested.tree.jit"
+			, "interpreter.nested.bytecode" , "interpreter.nested.bytecode.jit"
+			, "interpreter.nested.closure" , "interpreter.nested.closure.jit"
+			, "interpreter.fib.tree" , "interpreter.fib.tree.jit"
+			, "interpreter.fib.bytecode" , "interpreter.fib.bytecode.jit"
+			, "interpreter.fib.closure" , "interpreter.fib.closure.jit"
+			, "interpreter.repeat.tree.uncached" , "interpreter.repeat.tree.cached"
+			, "interpreter.repeat.bytecode.uncached" , "interpreter.repeat.bytecode.cached"
+			, "interpreter.repeat.closure.uncached" , "interpreter.repeat.closure.cached" } )
+	public String szName ;
+
+	@Override
+	protected String getName() { return this.szName ; }
+}
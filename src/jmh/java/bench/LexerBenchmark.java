@@ -0,0 +1,24 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Lexer.tokenise and FastLexer.lex, on about 100, 1000 and 10000
+ * characters of code
+ *
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State( Scope.Thread )
+public class LexerBenchmark extends ForthBenchmark
+{
+	@Param( { "lexer.tokenise.100" , "lexer.tokenise.1000" , "lexer.tokenise.10000"
+			, "fastlexer.lex.100" , "fastlexer.lex.1000" , "fastlexer.lex.10000" } )
+	public String szName ;
+
+	@Override
+	protected String getName() { return this.szName ; }
+}
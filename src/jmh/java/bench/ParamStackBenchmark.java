@@ -0,0 +1,22 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * ParamStack pushing and popping 100 items, one at a time and all at once
+ *
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State( Scope.Thread )
+public class ParamStackBenchmark extends ForthBenchmark
+{
+	@Param( { "paramstack.push-pop.100" , "paramstack.pushAll-popInto.100" } )
+	public String szName ;
+
+	@Override
+	protected String getName() { return this.szName ; }
+}
@@ -0,0 +1,24 @@
+/**
+ * @version 1 2026-10-18
+ *
+ * Parser.parse of tokens from the Lexer and of a TokenBuffer from the
+ * FastLexer, on about 100, 1000 and 10000 characters of code
+ *
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State( Scope.Thread )
+public class ParserBenchmark extends ForthBenchmark
+{
+	@Param( { "parser.parse.100" , "parser.parse.1000" , "parser.parse.10000"
+			, "parser.parse.buffer.100" , "parser.parse.buffer.1000" , "parser.parse.buffer.10000" } )
+	public String szName ;
+
+	@Override
+	protected String getName() { return this.szName ; }
+}